@@ -6,6 +6,9 @@ import java.security.PublicKey;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 
+import com.kryptnostic.api.v1.search.SearchResultCache;
+import com.kryptnostic.api.v1.search.SearchTokenCache;
+import com.kryptnostic.api.v1.security.KryptnosticEnginePool;
 import com.kryptnostic.directory.v1.http.UserDirectoryApi;
 import com.kryptnostic.kodex.v1.client.KryptnosticClient;
 import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
@@ -79,6 +82,16 @@ public interface KryptnosticConnection {
 
     DataStore getLocalDataStore();
 
+    SearchTokenCache getSearchTokenCache();
+
+    /**
+     * @return Cache of decrypted search results, which must be notified of every object this client stores, deletes or
+     *         receives through a share.
+     */
+    SearchResultCache getSearchResultCache();
+
+    KryptnosticEnginePool getKryptnosticEnginePool();
+
     /**
      * Retrieves the higher level client API.
      *
@@ -5,8 +5,10 @@ import java.util.concurrent.ExecutionException;
 
 import com.kryptnostic.api.v1.KryptnosticConnection;
 import com.kryptnostic.api.v1.search.DefaultSearchClient;
+import com.kryptnostic.api.v1.search.SearchPrefetcher;
 import com.kryptnostic.api.v1.sharing.SharingManager;
 import com.kryptnostic.api.v1.storage.KryptnosticStorageClient;
+import com.kryptnostic.api.v1.storage.ObjectCache;
 import com.kryptnostic.api.v1.storage.StorageClient;
 import com.kryptnostic.directory.v1.DirectoryClient;
 import com.kryptnostic.kodex.v1.client.KryptnosticClient;
@@ -23,10 +25,37 @@ public class DefaultKryptnosticClient implements KryptnosticClient {
     private final DirectoryClient directoryClient;
 
     public DefaultKryptnosticClient( KryptnosticConnection connection ) throws IrisException,
-            ResourceNotFoundException, ClassNotFoundException, IOException, ExecutionException, SecurityConfigurationException {
+            ResourceNotFoundException, ClassNotFoundException, IOException, ExecutionException,
+            SecurityConfigurationException {
+        this( connection, new KryptnosticStorageClient( connection ), 0 );
+    }
+
+    /**
+     * Creates a client whose searches prefetch their first {@code prefetchLimit} hits into the storage client's object
+     * cache.
+     */
+    public DefaultKryptnosticClient( KryptnosticConnection connection, int prefetchLimit ) throws IrisException,
+            ResourceNotFoundException, ClassNotFoundException, IOException, ExecutionException,
+            SecurityConfigurationException {
+        this( connection, new KryptnosticStorageClient( connection, new ObjectCache() ), prefetchLimit );
+    }
+
+    /**
+     * The search client shares the storage client's indexer so that queries are analyzed the same way as the objects
+     * they search for.
+     *
+     * @param prefetchLimit Number of hits to prefetch per search, or 0 to disable prefetching.
+     */
+    private DefaultKryptnosticClient(
+            KryptnosticConnection connection,
+            KryptnosticStorageClient storageClient,
+            int prefetchLimit ) {
         this(
-                new DefaultSearchClient( connection ),
-                new KryptnosticStorageClient( connection ),
+                new DefaultSearchClient(
+                        connection,
+                        storageClient.getIndexer(),
+                        prefetchLimit > 0 ? new SearchPrefetcher( storageClient, prefetchLimit ) : null ),
+                storageClient,
                 new SharingManager( connection ),
                 new DefaultDirectoryClient( connection ) );
     }
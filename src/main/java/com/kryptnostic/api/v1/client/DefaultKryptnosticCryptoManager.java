@@ -1,10 +1,15 @@
 package com.kryptnostic.api.v1.client;
 
 import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.Mac;
 
@@ -14,14 +19,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Charsets;
-import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.kryptnostic.api.v1.KryptnosticConnection;
 import com.kryptnostic.api.v1.KryptnosticCryptoManager;
 import com.kryptnostic.api.v1.security.loaders.rsa.RsaKeyLoader;
+import com.kryptnostic.api.v1.utils.KryptnosticExecutors;
 import com.kryptnostic.directory.v1.model.response.PublicKeyEnvelope;
 import com.kryptnostic.indexing.v1.ObjectSearchPair;
 import com.kryptnostic.kodex.v1.crypto.ciphers.Cyphers;
@@ -42,14 +55,19 @@ import com.kryptnostic.v2.storage.models.VersionedObjectKey;
  *
  */
 public class DefaultKryptnosticCryptoManager implements KryptnosticCryptoManager {
-    private final SharingApi            sharingApi;
-    private final KeyStorageApi         keyStorageApi;
-    private final SearchApi             searchApi;
-    private final KryptnosticConnection connection;
-    private final Mac                   hmac;
+    private final SharingApi                    sharingApi;
+    private final KeyStorageApi                 keyStorageApi;
+    private final SearchApi                     searchApi;
+    private final KryptnosticConnection         connection;
+    private final Mac                           hmac;
+    private final LoadingCache<UUID, PublicKey> publicKeys;
 
-    private static final Logger         logger = LoggerFactory
-                                                       .getLogger( DefaultKryptnosticCryptoManager.class );
+    private static final Logger                 logger = LoggerFactory
+                                                                   .getLogger( DefaultKryptnosticCryptoManager.class );
+
+    private static final int                    PUBLIC_KEY_CACHE_SIZE        = 10000;
+    private static final int                    PUBLIC_KEY_CACHE_TTL_MINUTES = 15;
+    private static final int                    PUBLIC_KEY_FETCH_THREADS     = 8;
 
     public DefaultKryptnosticCryptoManager(
             KryptnosticConnection connection ) {
@@ -58,6 +76,24 @@ public class DefaultKryptnosticCryptoManager implements KryptnosticCryptoManager
         this.searchApi = connection.getSearchApi();
         this.connection = connection;
         hmac = HmacUtils.getHmacSha256( connection.getMasterCryptoService().getSecretKey() );
+        publicKeys = CacheBuilder.newBuilder()
+                .maximumSize( PUBLIC_KEY_CACHE_SIZE )
+                .expireAfterWrite( PUBLIC_KEY_CACHE_TTL_MINUTES, TimeUnit.MINUTES )
+                .build( new CacheLoader<UUID, PublicKey>() {
+                    @Override
+                    public PublicKey load( UUID user ) throws Exception {
+                        PublicKey key = fetchPublicKey( user );
+                        if ( key == null ) {
+                            throw new InvalidCacheLoadException( "No public key for user " + user );
+                        }
+                        return key;
+                    }
+
+                    @Override
+                    public Map<UUID, PublicKey> loadAll( Iterable<? extends UUID> users ) throws Exception {
+                        return fetchPublicKeys( users );
+                    }
+                } );
     }
 
     @Override
@@ -109,24 +145,71 @@ public class DefaultKryptnosticCryptoManager implements KryptnosticCryptoManager
         return Cyphers.encrypt( RsaKeyLoader.CIPHER, connection.getPublicKey(), plaintext );
     }
 
+    /**
+     * Public keys are cached, and the ones missing from the cache are fetched concurrently, see
+     * {@link #fetchPublicKeys(Iterable)}. Sharing with many new users still costs one request per user.
+     */
     @Override
     public Map<UUID, RsaCompressingEncryptionService> getEncryptionServiceForUsers( Set<UUID> users ) {
-        return Maps.asMap( users, new Function<UUID, RsaCompressingEncryptionService>() {
-
-            @Override
-            public RsaCompressingEncryptionService apply( UUID input ) {
-                try {
-                    return new RsaCompressingEncryptionService( RsaKeyLoader.CIPHER, new PublicKeyEnvelope(
-                            keyStorageApi.getRSAPublicKey(
-                                    input ) ).asRsaPublicKey() );
-                } catch (
-                        InvalidKeySpecException
-                        | NoSuchAlgorithmException
-                        | SecurityConfigurationException e ) {
-                    return null;
+        Map<UUID, PublicKey> keys;
+        try {
+            keys = publicKeys.getAll( users );
+        } catch ( InvalidCacheLoadException e ) {
+            // Users without a retrievable public key are left out, just as they were before caching.
+            keys = publicKeys.getAllPresent( users );
+        } catch ( ExecutionException | UncheckedExecutionException e ) {
+            logger.error( "Unable to load public keys for users {}", users, e );
+            keys = publicKeys.getAllPresent( users );
+        }
+
+        ImmutableMap.Builder<UUID, RsaCompressingEncryptionService> services = ImmutableMap.builder();
+        for ( Entry<UUID, PublicKey> entry : keys.entrySet() ) {
+            try {
+                services.put( entry.getKey(), new RsaCompressingEncryptionService( RsaKeyLoader.CIPHER, entry
+                        .getValue() ) );
+            } catch ( SecurityConfigurationException e ) {
+                logger.error( "Unable to create encryption service for user {}", entry.getKey(), e );
+            }
+        }
+        return services.build();
+    }
+
+    private PublicKey fetchPublicKey( UUID user ) throws InvalidKeySpecException, NoSuchAlgorithmException {
+        byte[] publicKey = keyStorageApi.getRSAPublicKey( user );
+        if ( publicKey == null ) {
+            return null;
+        }
+        return new PublicKeyEnvelope( publicKey ).asRsaPublicKey();
+    }
+
+    /**
+     * The key storage api has no bulk endpoint for public keys, so this is not a single bulk fetch. It sends one
+     * {@link KeyStorageApi#getRSAPublicKey(UUID)} request per user, up to {@value #PUBLIC_KEY_FETCH_THREADS} at a
+     * time on a pool shared by every crypto manager.
+     */
+    private Map<UUID, PublicKey> fetchPublicKeys( Iterable<? extends UUID> users ) throws InterruptedException {
+        Map<UUID, ListenableFuture<PublicKey>> pending = Maps.newHashMap();
+        for ( final UUID user : users ) {
+            pending.put( user, PublicKeyExecutorHolder.EXECUTOR.submit( new Callable<PublicKey>() {
+                @Override
+                public PublicKey call() throws Exception {
+                    return fetchPublicKey( user );
+                }
+            } ) );
+        }
+
+        Map<UUID, PublicKey> keys = Maps.newHashMapWithExpectedSize( pending.size() );
+        for ( Entry<UUID, ListenableFuture<PublicKey>> entry : pending.entrySet() ) {
+            try {
+                PublicKey key = entry.getValue().get();
+                if ( key != null ) {
+                    keys.put( entry.getKey(), key );
                 }
+            } catch ( ExecutionException e ) {
+                logger.error( "Unable to retrieve public key for user {}", entry.getKey(), e.getCause() );
             }
-        } );
+        }
+        return keys;
     }
 
     @Override
@@ -139,11 +222,20 @@ public class DefaultKryptnosticCryptoManager implements KryptnosticCryptoManager
 
     @Override
     public byte[] computeSearchToken( String term ) {
-        return hmac.doFinal( StringUtils.getBytesUtf16( term ) );
+        // Mac instances aren't thread safe and queries may prepare tokens concurrently.
+        synchronized ( hmac ) {
+            return hmac.doFinal( StringUtils.getBytesUtf16( term ) );
+        }
     }
 
     @Override
     public int getIndexBucketSize( VersionedObjectKey objectKey ) {
         return 0;
     }
+
+    private static final class PublicKeyExecutorHolder {
+        private static final ListeningExecutorService EXECUTOR = KryptnosticExecutors.newFixedThreadPool(
+                                                                       "public-key-fetch",
+                                                                       PUBLIC_KEY_FETCH_THREADS );
+    }
 }
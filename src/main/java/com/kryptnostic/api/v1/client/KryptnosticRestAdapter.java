@@ -2,27 +2,118 @@ package com.kryptnostic.api.v1.client;
 
 import java.util.UUID;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import retrofit.RestAdapter;
-import retrofit.RestAdapter.LogLevel;
 import retrofit.client.Client;
+import retrofit.client.OkClient;
 import retrofit.converter.Converter;
 
+import com.google.common.base.Preconditions;
 import com.kryptnostic.api.v1.KryptnosticConnection;
+import com.kryptnostic.api.v1.metrics.KryptnosticMetrics;
+import com.kryptnostic.api.v1.metrics.MetricsClient;
 import com.kryptnostic.api.v1.utils.ByteArrayConverter;
 import com.kryptnostic.api.v1.utils.KryptnosticConverter;
+import com.kryptnostic.api.v2.utils.SmileConverter;
 import com.kryptnostic.kodex.v1.authentication.PreauthenticationRequestInterceptor;
 import com.kryptnostic.kodex.v1.exceptions.DefaultErrorHandler;
 
 public final class KryptnosticRestAdapter {
     private KryptnosticRestAdapter() {}
 
-    private static final Logger logger = LoggerFactory.getLogger( KryptnosticRestAdapter.class );
+    private static volatile TransportConfiguration  transport  = TransportConfiguration.defaults();
+    private static volatile WireLogConfiguration    wireLog    = WireLogConfiguration.defaults();
+    private static volatile ResilienceConfiguration resilience = ResilienceConfiguration.defaults();
+    private static volatile Client                  sharedTransport;
+    private static volatile Client                  sharedClient;
+
+    /**
+     * Replaces the transport settings used by the shared client. Adapters created afterwards use a new client with its
+     * own connection pool; adapters that already exist keep the old one.
+     */
+    public static synchronized void configureTransport( TransportConfiguration configuration ) {
+        transport = Preconditions.checkNotNull( configuration, "Transport configuration cannot be null." );
+        sharedTransport = null;
+        sharedClient = null;
+    }
+
+    public static TransportConfiguration getTransportConfiguration() {
+        return transport;
+    }
+
+    /**
+     * Replaces the wire logging settings. Takes effect immediately for every adapter, see {@link WireLoggingClient}.
+     */
+    public static void configureWireLog( WireLogConfiguration configuration ) {
+        wireLog = Preconditions.checkNotNull( configuration, "Wire log configuration cannot be null." );
+    }
+
+    public static WireLogConfiguration getWireLogConfiguration() {
+        return wireLog;
+    }
+
+    /**
+     * Replaces the retry and hedging settings. Takes effect immediately for every adapter, see {@link ResilientClient}.
+     */
+    public static void configureResilience( ResilienceConfiguration configuration ) {
+        resilience = Preconditions.checkNotNull( configuration, "Resilience configuration cannot be null." );
+    }
+
+    public static ResilienceConfiguration getResilienceConfiguration() {
+        return resilience;
+    }
+
+    /**
+     * @return The OkHttp client shared by every adapter in the JVM that isn't given a client of its own, so that they
+     *         all reuse the same pool of warm connections. Like every client handed to an adapter, it reports to
+     *         {@link KryptnosticMetrics}, logs through {@link WireLoggingClient} and retries through
+     *         {@link ResilientClient}.
+     */
+    public static Client getSharedClient() {
+        Client client = sharedClient;
+        if ( client == null ) {
+            synchronized ( KryptnosticRestAdapter.class ) {
+                client = sharedClient;
+                if ( client == null ) {
+                    client = instrument( getSharedTransport() );
+                    sharedClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * @return The bare OkHttp client behind {@link #getSharedClient()}, for clients such as
+     *         {@link LoadBalancingClient} that are instrumented once they are handed to an adapter.
+     */
+    public static Client getSharedTransport() {
+        Client client = sharedTransport;
+        if ( client == null ) {
+            synchronized ( KryptnosticRestAdapter.class ) {
+                client = sharedTransport;
+                if ( client == null ) {
+                    client = new OkClient( transport.newOkHttpClient() );
+                    sharedTransport = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private static Client orSharedClient( Client client ) {
+        if ( client == null ) {
+            return getSharedClient();
+        }
+        return client instanceof ResilientClient ? client : instrument( client );
+    }
+
+    private static Client instrument( Client client ) {
+        // Each attempt of a retried or hedged request is measured and logged on its own.
+        return new ResilientClient( new MetricsClient( new WireLoggingClient( client ) ) );
+    }
 
     public static RestAdapter create( Client client, KryptnosticConnection connection ) {
-        return builder( connection, new KryptnosticConverter() ).setClient( client )
+        return builder( connection, new KryptnosticConverter() ).setClient( orSharedClient( client ) )
                 .build();
     }
 
@@ -47,7 +138,8 @@ public final class KryptnosticRestAdapter {
             UUID user,
             String userCredential,
             Client client ) {
-        return builder( url, user, userCredential, new ByteArrayConverter() ).setClient( client ).build();
+        return builder( url, user, userCredential, new ByteArrayConverter() ).setClient( orSharedClient( client ) )
+                .build();
     }
 
     public static RestAdapter createWithDefaultJacksonConverter(
@@ -55,18 +147,27 @@ public final class KryptnosticRestAdapter {
             UUID user,
             String userCredential,
             Client client ) {
-        return builder( url, user, userCredential, new KryptnosticConverter() ).setClient( client ).build();
+        return builder( url, user, userCredential, new KryptnosticConverter() ).setClient( orSharedClient( client ) )
+                .build();
+    }
+
+    /**
+     * Creates an adapter that negotiates Jackson's binary Smile encoding with the server, falling back to json.
+     */
+    public static RestAdapter createWithSmileConverter(
+            String url,
+            UUID user,
+            String userCredential,
+            Client client ) {
+        return builder( url, user, userCredential, new SmileConverter() )
+                .setRequestInterceptor(
+                        SmileConverter.acceptSmile( new PreauthenticationRequestInterceptor( user, userCredential ) ) )
+                .setClient( orSharedClient( client ) ).build();
     }
 
     public static RestAdapter createWithNoAuthAndDefaultJacksonConverter( String url, Client client ) {
         return new RestAdapter.Builder().setConverter( new KryptnosticConverter() ).setEndpoint( url )
-                .setErrorHandler( new DefaultErrorHandler() ).setLogLevel( LogLevel.FULL ).setClient( client )
-                .setLog( new RestAdapter.Log() {
-                    @Override
-                    public void log( String msg ) {
-                        logger.debug( msg.replaceAll( "%", "[percent]" ) );
-                    }
-                } ).build();
+                .setErrorHandler( new DefaultErrorHandler() ).setClient( orSharedClient( client ) ).build();
     }
 
     public static RestAdapter.Builder builder( KryptnosticConnection connection, Converter converter ) {
@@ -76,12 +177,6 @@ public final class KryptnosticRestAdapter {
     public static RestAdapter.Builder builder( String url, UUID user, String userCredential, Converter converter ) {
         return new RestAdapter.Builder().setConverter( converter ).setEndpoint( url )
                 .setRequestInterceptor( new PreauthenticationRequestInterceptor( user, userCredential ) )
-                .setErrorHandler( new DefaultErrorHandler() ).setLogLevel( LogLevel.FULL )
-                .setLog( new RestAdapter.Log() {
-                    @Override
-                    public void log( String msg ) {
-                        logger.debug( msg.replaceAll( "%", "[percent]" ) );
-                    }
-                } );
+                .setErrorHandler( new DefaultErrorHandler() ).setClient( getSharedClient() );
     }
 }
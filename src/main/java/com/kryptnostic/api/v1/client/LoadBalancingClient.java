@@ -0,0 +1,190 @@
+package com.kryptnostic.api.v1.client;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import retrofit.client.Client;
+import retrofit.client.Request;
+import retrofit.client.Response;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.kryptnostic.api.v1.metrics.KryptnosticMetrics;
+
+/**
+ * Spreads requests across several equivalent API endpoints. Retrofit addresses every request to the primary endpoint
+ * and this client rewrites it to the endpoint picked by the {@link Strategy}. Endpoints that fail several requests in a
+ * row, by throwing an {@link IOException} or answering with one of the {@link #NODE_FAILURE_STATUSES}, are ejected
+ * for a while, and if every endpoint has been ejected the one due back soonest is used.
+ */
+public class LoadBalancingClient implements Client {
+    private static final Logger      logger                       = LoggerFactory
+                                                                              .getLogger( LoadBalancingClient.class );
+
+    public static final String       EJECTIONS                    = "client.endpoint-ejections";
+    public static final int          EJECT_AFTER_FAILURES_DEFAULT = 3;
+    public static final long         EJECT_MILLIS_DEFAULT         = TimeUnit.SECONDS.toMillis( 30 );
+
+    /**
+     * Statuses that mean the endpoint itself, or the proxy in front of it, is unhealthy. Other errors, 500 included,
+     * come from the application and say nothing about the endpoint, so they don't count towards ejection.
+     */
+    public static final Set<Integer> NODE_FAILURE_STATUSES        = ImmutableSet.of( 502, 503, 504 );
+
+    /**
+     * Weight of the latest sample in the latency moving average.
+     */
+    private static final double      LATENCY_DECAY                = 0.3;
+
+    public enum Strategy {
+        /**
+         * Pick the endpoint with the fewest requests in flight.
+         */
+        LEAST_OUTSTANDING,
+        /**
+         * Pick the endpoint with the lowest average latency, weighted by the requests in flight.
+         */
+        LATENCY_AWARE
+    }
+
+    private final String             primary;
+    private final List<Node>         nodes;
+    private final Strategy           strategy;
+    private final Client             delegate;
+    private final int                ejectAfterFailures;
+    private final long               ejectNanos;
+    private final AtomicInteger      offset                       = new AtomicInteger();
+
+    public LoadBalancingClient( String primary, List<String> endpoints, Strategy strategy, Client delegate ) {
+        this( primary, endpoints, strategy, delegate, EJECT_AFTER_FAILURES_DEFAULT, EJECT_MILLIS_DEFAULT );
+    }
+
+    /**
+     * @param primary Endpoint that Retrofit is configured with.
+     * @param endpoints Every endpoint to balance across, which may include {@code primary}. Duplicates are ignored.
+     */
+    public LoadBalancingClient(
+            String primary,
+            List<String> endpoints,
+            Strategy strategy,
+            Client delegate,
+            int ejectAfterFailures,
+            long ejectMillis ) {
+        Preconditions.checkArgument( !endpoints.isEmpty(), "At least one endpoint is required." );
+        this.primary = primary;
+        ImmutableList.Builder<Node> nodes = ImmutableList.builder();
+        for ( String endpoint : ImmutableSet.copyOf( endpoints ) ) {
+            nodes.add( new Node( endpoint ) );
+        }
+        this.nodes = nodes.build();
+        this.strategy = Preconditions.checkNotNull( strategy, "Strategy cannot be null." );
+        this.delegate = Preconditions.checkNotNull( delegate, "Client cannot be null." );
+        this.ejectAfterFailures = ejectAfterFailures;
+        this.ejectNanos = TimeUnit.MILLISECONDS.toNanos( ejectMillis );
+    }
+
+    @Override
+    public Response execute( Request request ) throws IOException {
+        if ( !request.getUrl().startsWith( primary ) ) {
+            return delegate.execute( request );
+        }
+
+        Node node = select( System.nanoTime() );
+        Request routed = node.url.equals( primary ) ? request : new Request(
+                request.getMethod(),
+                node.url + request.getUrl().substring( primary.length() ),
+                request.getHeaders(),
+                request.getBody() );
+
+        node.outstanding.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            Response response = delegate.execute( routed );
+            if ( NODE_FAILURE_STATUSES.contains( response.getStatus() ) ) {
+                failed( node );
+            } else {
+                node.succeeded( System.nanoTime() - start );
+            }
+            return response;
+        } catch ( IOException e ) {
+            failed( node );
+            throw e;
+        } finally {
+            node.outstanding.decrementAndGet();
+        }
+    }
+
+    private Node select( long now ) {
+        Node best = null;
+        double bestScore = Double.MAX_VALUE;
+        Node nextBack = null;
+        // Start from a rotating offset so that ties are spread across endpoints.
+        int start = Math.abs( offset.getAndIncrement() % nodes.size() );
+        for ( int i = 0; i < nodes.size(); ++i ) {
+            Node node = nodes.get( ( start + i ) % nodes.size() );
+            if ( node.ejectedUntil - now > 0 ) {
+                if ( nextBack == null || node.ejectedUntil - nextBack.ejectedUntil < 0 ) {
+                    nextBack = node;
+                }
+                continue;
+            }
+            double score = score( node );
+            if ( score < bestScore ) {
+                best = node;
+                bestScore = score;
+            }
+        }
+        return best == null ? nextBack : best;
+    }
+
+    private double score( Node node ) {
+        int outstanding = node.outstanding.get();
+        switch ( strategy ) {
+            case LATENCY_AWARE:
+                // Endpoints without samples yet score 0 so that they get tried.
+                return node.latencyNanos * ( outstanding + 1 );
+            case LEAST_OUTSTANDING:
+            default:
+                return outstanding;
+        }
+    }
+
+    private void failed( Node node ) {
+        if ( node.failures.incrementAndGet() >= ejectAfterFailures ) {
+            node.failures.set( 0 );
+            node.ejectedUntil = System.nanoTime() + ejectNanos;
+            KryptnosticMetrics.getRegistry().incrementCounter( EJECTIONS );
+            logger.warn( "Ejecting endpoint {} for {} ms after {} consecutive failures.",
+                    node.url,
+                    TimeUnit.NANOSECONDS.toMillis( ejectNanos ),
+                    ejectAfterFailures );
+        }
+    }
+
+    private static final class Node {
+        private final String        url;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger failures    = new AtomicInteger();
+        private volatile double     latencyNanos;
+        private volatile long       ejectedUntil;
+
+        public Node( String url ) {
+            this.url = url;
+            this.ejectedUntil = System.nanoTime();
+        }
+
+        public void succeeded( long elapsedNanos ) {
+            failures.set( 0 );
+            // Racing updates may drop a sample, which doesn't matter for an average.
+            double current = latencyNanos;
+            latencyNanos = current == 0 ? elapsedNanos : current + LATENCY_DECAY * ( elapsedNanos - current );
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.kryptnostic.api.v1.client;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Retry and hedging settings for {@link ResilientClient}. Use {@link ResilienceConfigurationBuilder} to create
+ * instances.
+ */
+public class ResilienceConfiguration {
+    public static final int          MAX_ATTEMPTS_DEFAULT           = 3;
+    public static final long         INITIAL_BACKOFF_MILLIS_DEFAULT = 50;
+    public static final long         MAX_BACKOFF_MILLIS_DEFAULT     = TimeUnit.SECONDS.toMillis( 2 );
+    public static final long         HEDGE_DELAY_MILLIS_DEFAULT     = 0;
+    public static final Set<String>  IDEMPOTENT_METHODS_DEFAULT     = ImmutableSet.of( "GET", "HEAD", "OPTIONS" );
+    public static final Set<Integer> RETRYABLE_STATUSES_DEFAULT     = ImmutableSet.of( 502, 503, 504 );
+
+    private final int                maxAttempts;
+    private final long               initialBackoffMillis;
+    private final long               maxBackoffMillis;
+    private final long               hedgeDelayMillis;
+    private final Set<String>        idempotentMethods;
+    private final Set<Integer>       retryableStatuses;
+
+    public ResilienceConfiguration(
+            int maxAttempts,
+            long initialBackoffMillis,
+            long maxBackoffMillis,
+            long hedgeDelayMillis,
+            Set<String> idempotentMethods,
+            Set<Integer> retryableStatuses ) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.hedgeDelayMillis = hedgeDelayMillis;
+        this.idempotentMethods = ImmutableSet.copyOf( idempotentMethods );
+        this.retryableStatuses = ImmutableSet.copyOf( retryableStatuses );
+    }
+
+    public static ResilienceConfigurationBuilder builder() {
+        return new ResilienceConfigurationBuilder();
+    }
+
+    public static ResilienceConfiguration defaults() {
+        return builder().build();
+    }
+
+    /**
+     * @return Total number of times an idempotent request is tried, including the first attempt.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    /**
+     * @return How long to wait on an idempotent request before sending a duplicate, or 0 if hedging is disabled.
+     */
+    public long getHedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+
+    public boolean isHedging() {
+        return hedgeDelayMillis > 0;
+    }
+
+    public boolean isIdempotent( String method ) {
+        return idempotentMethods.contains( method );
+    }
+
+    public boolean isRetryable( int status ) {
+        return retryableStatuses.contains( status );
+    }
+
+    /**
+     * @return Backoff before retry number {@code retry}, starting at 1. Uses full jitter, so the result is uniformly
+     *         distributed below an exponentially growing cap.
+     */
+    public long getBackoffMillis( int retry, double jitter ) {
+        long cap = initialBackoffMillis << Math.min( retry - 1, 30 );
+        if ( cap < 0 || cap > maxBackoffMillis ) {
+            cap = maxBackoffMillis;
+        }
+        return (long) ( cap * jitter );
+    }
+}
@@ -0,0 +1,85 @@
+package com.kryptnostic.api.v1.client;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+public class ResilienceConfigurationBuilder {
+    private int          maxAttempts;
+    private long         initialBackoffMillis;
+    private long         maxBackoffMillis;
+    private long         hedgeDelayMillis;
+    private Set<String>  idempotentMethods;
+    private Set<Integer> retryableStatuses;
+
+    public ResilienceConfigurationBuilder() {
+        maxAttempts = ResilienceConfiguration.MAX_ATTEMPTS_DEFAULT;
+        initialBackoffMillis = ResilienceConfiguration.INITIAL_BACKOFF_MILLIS_DEFAULT;
+        maxBackoffMillis = ResilienceConfiguration.MAX_BACKOFF_MILLIS_DEFAULT;
+        hedgeDelayMillis = ResilienceConfiguration.HEDGE_DELAY_MILLIS_DEFAULT;
+        idempotentMethods = ResilienceConfiguration.IDEMPOTENT_METHODS_DEFAULT;
+        retryableStatuses = ResilienceConfiguration.RETRYABLE_STATUSES_DEFAULT;
+    }
+
+    public ResilienceConfigurationBuilder maxAttempts( int maxAttempts ) {
+        Preconditions.checkArgument( maxAttempts >= 1, "Max attempts must be at least 1." );
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public ResilienceConfigurationBuilder noRetries() {
+        return maxAttempts( 1 );
+    }
+
+    /**
+     * Retries wait a random time below {@code initial * 2^(retry - 1)}, capped at {@code max}.
+     */
+    public ResilienceConfigurationBuilder backoff( long initial, long max, TimeUnit unit ) {
+        Preconditions.checkArgument( initial >= 0 && max >= initial, "Invalid backoff range." );
+        this.initialBackoffMillis = unit.toMillis( initial );
+        this.maxBackoffMillis = unit.toMillis( max );
+        return this;
+    }
+
+    /**
+     * Send a duplicate of an idempotent request if it hasn't completed after {@code delay}, and use whichever response
+     * arrives first. A good delay is around the p95 latency of the endpoints being hedged.
+     */
+    public ResilienceConfigurationBuilder hedgeAfter( long delay, TimeUnit unit ) {
+        Preconditions.checkArgument( delay > 0, "Hedge delay must be positive." );
+        this.hedgeDelayMillis = unit.toMillis( delay );
+        return this;
+    }
+
+    public ResilienceConfigurationBuilder noHedging() {
+        this.hedgeDelayMillis = 0;
+        return this;
+    }
+
+    /**
+     * Http methods that are safe to retry or hedge.
+     */
+    public ResilienceConfigurationBuilder idempotentMethods( Set<String> idempotentMethods ) {
+        this.idempotentMethods = Preconditions.checkNotNull( idempotentMethods, "Idempotent methods cannot be null." );
+        return this;
+    }
+
+    /**
+     * Response statuses that are treated as transient failures.
+     */
+    public ResilienceConfigurationBuilder retryableStatuses( Set<Integer> retryableStatuses ) {
+        this.retryableStatuses = Preconditions.checkNotNull( retryableStatuses, "Retryable statuses cannot be null." );
+        return this;
+    }
+
+    public ResilienceConfiguration build() {
+        return new ResilienceConfiguration(
+                maxAttempts,
+                initialBackoffMillis,
+                maxBackoffMillis,
+                hedgeDelayMillis,
+                idempotentMethods,
+                retryableStatuses );
+    }
+}
@@ -0,0 +1,256 @@
+package com.kryptnostic.api.v1.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import retrofit.client.Client;
+import retrofit.client.Request;
+import retrofit.client.Response;
+import retrofit.mime.TypedInput;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.kryptnostic.api.v1.metrics.KryptnosticMetrics;
+import com.kryptnostic.api.v1.utils.KryptnosticExecutors;
+
+/**
+ * Retries and hedges idempotent requests according to {@link KryptnosticRestAdapter#getResilienceConfiguration()}.
+ * Transient failures, either an {@link IOException} or a retryable status, are retried with jittered exponential
+ * backoff before Retrofit's error handler ever sees them. Requests that aren't idempotent are passed straight through.
+ */
+public class ResilientClient implements Client {
+    private static final Logger  logger            = LoggerFactory.getLogger( ResilientClient.class );
+
+    public static final String   RETRIES           = "client.retries";
+    public static final String   RETRIES_EXHAUSTED = "client.retries-exhausted";
+    public static final String   HEDGES            = "client.hedges";
+    public static final String   HEDGES_WON        = "client.hedges-won";
+    private static final int     HEDGE_THREADS     = 8;
+
+    private final Client         delegate;
+
+    public ResilientClient( Client delegate ) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Response execute( Request request ) throws IOException {
+        ResilienceConfiguration configuration = KryptnosticRestAdapter.getResilienceConfiguration();
+        if ( !configuration.isIdempotent( request.getMethod() ) ) {
+            return delegate.execute( request );
+        }
+
+        for ( int attempt = 1;; ++attempt ) {
+            boolean lastAttempt = attempt >= configuration.getMaxAttempts();
+            Response response;
+            try {
+                response = configuration.isHedging() ? hedged( request, configuration ) : delegate.execute( request );
+            } catch ( InterruptedIOException e ) {
+                throw e;
+            } catch ( IOException e ) {
+                if ( lastAttempt ) {
+                    exhausted( request, attempt );
+                    throw e;
+                }
+                logger.debug( "Retrying {} {} after attempt {} failed: {}",
+                        request.getMethod(),
+                        request.getUrl(),
+                        attempt,
+                        e.toString() );
+                backoff( configuration, attempt );
+                continue;
+            }
+
+            if ( !configuration.isRetryable( response.getStatus() ) ) {
+                return response;
+            }
+            if ( lastAttempt ) {
+                exhausted( request, attempt );
+                return response;
+            }
+            logger.debug( "Retrying {} {} after attempt {} returned {}.",
+                    request.getMethod(),
+                    request.getUrl(),
+                    attempt,
+                    response.getStatus() );
+            discard( response );
+            backoff( configuration, attempt );
+        }
+    }
+
+    /**
+     * Sends {@code request} on the calling thread and, if it hasn't completed within the hedge delay, a duplicate on
+     * the bounded hedge pool. Since the caller is busy with the primary, the hedge is only used if the primary fails or
+     * returns a retryable status, in which case it is waited on instead of retrying from scratch. A hedge that isn't
+     * needed is cancelled, and its response discarded if it arrives anyway.
+     */
+    private Response hedged( Request request, ResilienceConfiguration configuration ) throws IOException {
+        HedgedRequest hedge = new HedgedRequest( request );
+        hedge.schedule( configuration.getHedgeDelayMillis() );
+
+        Response response;
+        try {
+            response = delegate.execute( request );
+        } catch ( IOException e ) {
+            if ( hedge.cancel() ) {
+                throw e;
+            }
+            logger.debug( "Waiting on hedge for {} {} after the primary failed: {}",
+                    request.getMethod(),
+                    request.getUrl(),
+                    e.toString() );
+            return won( hedge.await() );
+        } catch ( RuntimeException e ) {
+            hedge.abandon();
+            throw e;
+        }
+
+        if ( !configuration.isRetryable( response.getStatus() ) || hedge.cancel() ) {
+            hedge.abandon();
+            return response;
+        }
+        Response alternative;
+        try {
+            alternative = hedge.await();
+        } catch ( IOException e ) {
+            return response;
+        }
+        if ( configuration.isRetryable( alternative.getStatus() ) ) {
+            discard( alternative );
+            return response;
+        }
+        discard( response );
+        return won( alternative );
+    }
+
+    private static Response won( Response hedgeResponse ) {
+        KryptnosticMetrics.getRegistry().incrementCounter( HEDGES_WON );
+        return hedgeResponse;
+    }
+
+    private static void backoff( ResilienceConfiguration configuration, int attempt ) throws InterruptedIOException {
+        KryptnosticMetrics.getRegistry().incrementCounter( RETRIES );
+        long millis = configuration.getBackoffMillis( attempt, ThreadLocalRandom.current().nextDouble() );
+        if ( millis <= 0 ) {
+            return;
+        }
+        try {
+            Thread.sleep( millis );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private static void exhausted( Request request, int attempts ) {
+        if ( attempts > 1 ) {
+            KryptnosticMetrics.getRegistry().incrementCounter( RETRIES_EXHAUSTED );
+            logger.warn( "Giving up on {} {} after {} attempts.", request.getMethod(), request.getUrl(), attempts );
+        }
+    }
+
+    private static void discard( Response response ) {
+        TypedInput body = response.getBody();
+        if ( body == null ) {
+            return;
+        }
+        try {
+            body.in().close();
+        } catch ( IOException e ) {
+            logger.debug( "Unable to close discarded response body.", e );
+        }
+    }
+
+    private static IOException propagate( ExecutionException e ) throws IOException {
+        Throwables.propagateIfInstanceOf( e.getCause(), IOException.class );
+        throw Throwables.propagate( e.getCause() );
+    }
+
+    /**
+     * A duplicate of a request that is only sent if it hasn't been cancelled by the time its delay runs out.
+     */
+    private final class HedgedRequest implements Runnable {
+        private final Request                  request;
+        private final AtomicBoolean            claimed = new AtomicBoolean();
+        private final SettableFuture<Response> result  = SettableFuture.create();
+        private volatile Future<?>             scheduled;
+
+        public HedgedRequest( Request request ) {
+            this.request = request;
+        }
+
+        public void schedule( long delayMillis ) {
+            scheduled = HedgeExecutorHolder.EXECUTOR.schedule( this, delayMillis, TimeUnit.MILLISECONDS );
+        }
+
+        @Override
+        public void run() {
+            if ( !claimed.compareAndSet( false, true ) ) {
+                return;
+            }
+            KryptnosticMetrics.getRegistry().incrementCounter( HEDGES );
+            try {
+                Response response = delegate.execute( request );
+                if ( !result.set( response ) ) {
+                    discard( response );
+                }
+            } catch ( IOException | RuntimeException e ) {
+                result.setException( e );
+            }
+        }
+
+        /**
+         * @return True if the hedge will never be sent, false if it already has been.
+         */
+        public boolean cancel() {
+            scheduled.cancel( false );
+            return claimed.compareAndSet( false, true );
+        }
+
+        /**
+         * Cancels the hedge, interrupting it if it has been sent, and discards its response.
+         */
+        public void abandon() {
+            if ( cancel() ) {
+                return;
+            }
+            if ( result.cancel( false ) ) {
+                scheduled.cancel( true );
+                return;
+            }
+            try {
+                discard( Uninterruptibles.getUninterruptibly( result ) );
+            } catch ( ExecutionException e ) {
+                // A failed hedge has nothing to discard.
+            }
+        }
+
+        public Response await() throws IOException {
+            try {
+                return result.get();
+            } catch ( ExecutionException e ) {
+                throw propagate( e );
+            } catch ( InterruptedException e ) {
+                abandon();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+    }
+
+    private static final class HedgeExecutorHolder {
+        private static final ScheduledExecutorService EXECUTOR = KryptnosticExecutors.newScheduledThreadPool(
+                                                                       "hedged-requests",
+                                                                       HEDGE_THREADS );
+    }
+}
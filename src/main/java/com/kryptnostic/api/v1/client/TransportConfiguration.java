@@ -0,0 +1,99 @@
+package com.kryptnostic.api.v1.client;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Protocol;
+
+/**
+ * HTTP transport settings for the OkHttp client shared by every {@link KryptnosticRestAdapter} in the JVM. Use
+ * {@link TransportConfigurationBuilder} to create instances.
+ */
+public class TransportConfiguration {
+    public static final int     MAX_IDLE_CONNECTIONS_DEFAULT   = 64;
+    public static final long    KEEP_ALIVE_MILLIS_DEFAULT      = TimeUnit.MINUTES.toMillis( 5 );
+    public static final long    CONNECT_TIMEOUT_MILLIS_DEFAULT = TimeUnit.SECONDS.toMillis( 10 );
+    public static final long    READ_TIMEOUT_MILLIS_DEFAULT    = TimeUnit.SECONDS.toMillis( 60 );
+    public static final long    WRITE_TIMEOUT_MILLIS_DEFAULT   = TimeUnit.SECONDS.toMillis( 60 );
+    public static final boolean MULTIPLEXING_DEFAULT           = true;
+
+    private final int           maxIdleConnections;
+    private final long          keepAliveMillis;
+    private final long          connectTimeoutMillis;
+    private final long          readTimeoutMillis;
+    private final long          writeTimeoutMillis;
+    private final boolean       multiplexing;
+
+    public TransportConfiguration(
+            int maxIdleConnections,
+            long keepAliveMillis,
+            long connectTimeoutMillis,
+            long readTimeoutMillis,
+            long writeTimeoutMillis,
+            boolean multiplexing ) {
+        this.maxIdleConnections = maxIdleConnections;
+        this.keepAliveMillis = keepAliveMillis;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.multiplexing = multiplexing;
+    }
+
+    public static TransportConfigurationBuilder builder() {
+        return new TransportConfigurationBuilder();
+    }
+
+    public static TransportConfiguration defaults() {
+        return builder().build();
+    }
+
+    /**
+     * @return A new OkHttp client with its own connection pool configured from these settings.
+     */
+    public OkHttpClient newOkHttpClient() {
+        OkHttpClient client = new OkHttpClient();
+        client.setConnectionPool( new ConnectionPool( maxIdleConnections, keepAliveMillis ) );
+        client.setConnectTimeout( connectTimeoutMillis, TimeUnit.MILLISECONDS );
+        client.setReadTimeout( readTimeoutMillis, TimeUnit.MILLISECONDS );
+        client.setWriteTimeout( writeTimeoutMillis, TimeUnit.MILLISECONDS );
+        client.setProtocols( getProtocols() );
+        return client;
+    }
+
+    /**
+     * @return Protocols offered to the server. HTTP/2 is negotiated over TLS and falls back to HTTP/1.1.
+     */
+    public List<Protocol> getProtocols() {
+        if ( multiplexing ) {
+            return ImmutableList.of( Protocol.HTTP_2, Protocol.HTTP_1_1 );
+        }
+        return ImmutableList.of( Protocol.HTTP_1_1 );
+    }
+
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public long getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    public long getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public long getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public long getWriteTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+
+    public boolean isMultiplexing() {
+        return multiplexing;
+    }
+}
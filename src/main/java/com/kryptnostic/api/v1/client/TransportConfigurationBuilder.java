@@ -0,0 +1,78 @@
+package com.kryptnostic.api.v1.client;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+public class TransportConfigurationBuilder {
+    private int     maxIdleConnections;
+    private long    keepAliveMillis;
+    private long    connectTimeoutMillis;
+    private long    readTimeoutMillis;
+    private long    writeTimeoutMillis;
+    private boolean multiplexing;
+
+    public TransportConfigurationBuilder() {
+        maxIdleConnections = TransportConfiguration.MAX_IDLE_CONNECTIONS_DEFAULT;
+        keepAliveMillis = TransportConfiguration.KEEP_ALIVE_MILLIS_DEFAULT;
+        connectTimeoutMillis = TransportConfiguration.CONNECT_TIMEOUT_MILLIS_DEFAULT;
+        readTimeoutMillis = TransportConfiguration.READ_TIMEOUT_MILLIS_DEFAULT;
+        writeTimeoutMillis = TransportConfiguration.WRITE_TIMEOUT_MILLIS_DEFAULT;
+        multiplexing = TransportConfiguration.MULTIPLEXING_DEFAULT;
+    }
+
+    /**
+     * Maximum number of idle connections kept open per pool.
+     */
+    public TransportConfigurationBuilder maxIdleConnections( int maxIdleConnections ) {
+        Preconditions.checkArgument( maxIdleConnections >= 0, "Max idle connections cannot be negative." );
+        this.maxIdleConnections = maxIdleConnections;
+        return this;
+    }
+
+    /**
+     * How long an idle connection is kept open before it is closed.
+     */
+    public TransportConfigurationBuilder keepAlive( long duration, TimeUnit unit ) {
+        this.keepAliveMillis = unit.toMillis( duration );
+        return this;
+    }
+
+    public TransportConfigurationBuilder connectTimeout( long timeout, TimeUnit unit ) {
+        this.connectTimeoutMillis = unit.toMillis( timeout );
+        return this;
+    }
+
+    public TransportConfigurationBuilder readTimeout( long timeout, TimeUnit unit ) {
+        this.readTimeoutMillis = unit.toMillis( timeout );
+        return this;
+    }
+
+    public TransportConfigurationBuilder writeTimeout( long timeout, TimeUnit unit ) {
+        this.writeTimeoutMillis = unit.toMillis( timeout );
+        return this;
+    }
+
+    /**
+     * Offer HTTP/2 so that concurrent requests to the same host share one connection.
+     */
+    public TransportConfigurationBuilder multiplexing() {
+        this.multiplexing = true;
+        return this;
+    }
+
+    public TransportConfigurationBuilder noMultiplexing() {
+        this.multiplexing = false;
+        return this;
+    }
+
+    public TransportConfiguration build() {
+        return new TransportConfiguration(
+                maxIdleConnections,
+                keepAliveMillis,
+                connectTimeoutMillis,
+                readTimeoutMillis,
+                writeTimeoutMillis,
+                multiplexing );
+    }
+}
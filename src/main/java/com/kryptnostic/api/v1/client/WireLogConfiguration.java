@@ -0,0 +1,66 @@
+package com.kryptnostic.api.v1.client;
+
+/**
+ * Controls what {@link WireLoggingClient} writes to the debug log. Use {@link WireLogConfigurationBuilder} to create
+ * instances.
+ */
+public class WireLogConfiguration {
+    public enum Level {
+        /**
+         * Nothing is logged and requests go straight to the underlying client.
+         */
+        NONE,
+        /**
+         * Request line, response status, latency and body sizes.
+         */
+        BASIC,
+        /**
+         * Everything in {@link #BASIC} plus headers.
+         */
+        HEADERS,
+        /**
+         * Everything in {@link #HEADERS} plus the start of text bodies.
+         */
+        FULL
+    }
+
+    public static final Level  LEVEL_DEFAULT          = Level.BASIC;
+    public static final int    MAX_BODY_BYTES_DEFAULT = 1024;
+    public static final double SAMPLE_RATE_DEFAULT    = 1.0;
+
+    private final Level        level;
+    private final int          maxBodyBytes;
+    private final double       sampleRate;
+
+    public WireLogConfiguration( Level level, int maxBodyBytes, double sampleRate ) {
+        this.level = level;
+        this.maxBodyBytes = maxBodyBytes;
+        this.sampleRate = sampleRate;
+    }
+
+    public static WireLogConfigurationBuilder builder() {
+        return new WireLogConfigurationBuilder();
+    }
+
+    public static WireLogConfiguration defaults() {
+        return builder().build();
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return Maximum number of body bytes logged at {@link Level#FULL}.
+     */
+    public int getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    /**
+     * @return Fraction of requests that are logged, between 0 and 1.
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+}
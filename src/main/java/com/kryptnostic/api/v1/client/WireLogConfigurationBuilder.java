@@ -0,0 +1,47 @@
+package com.kryptnostic.api.v1.client;
+
+import com.google.common.base.Preconditions;
+import com.kryptnostic.api.v1.client.WireLogConfiguration.Level;
+
+public class WireLogConfigurationBuilder {
+    private Level  level;
+    private int    maxBodyBytes;
+    private double sampleRate;
+
+    public WireLogConfigurationBuilder() {
+        level = WireLogConfiguration.LEVEL_DEFAULT;
+        maxBodyBytes = WireLogConfiguration.MAX_BODY_BYTES_DEFAULT;
+        sampleRate = WireLogConfiguration.SAMPLE_RATE_DEFAULT;
+    }
+
+    public WireLogConfigurationBuilder level( Level level ) {
+        this.level = Preconditions.checkNotNull( level, "Wire log level cannot be null." );
+        return this;
+    }
+
+    public WireLogConfigurationBuilder disabled() {
+        return level( Level.NONE );
+    }
+
+    /**
+     * Bodies longer than {@code maxBodyBytes} are truncated in the log.
+     */
+    public WireLogConfigurationBuilder maxBodyBytes( int maxBodyBytes ) {
+        Preconditions.checkArgument( maxBodyBytes >= 0, "Max body bytes cannot be negative." );
+        this.maxBodyBytes = maxBodyBytes;
+        return this;
+    }
+
+    /**
+     * Only log a random {@code sampleRate} fraction of requests.
+     */
+    public WireLogConfigurationBuilder sampleRate( double sampleRate ) {
+        Preconditions.checkArgument( sampleRate >= 0 && sampleRate <= 1, "Sample rate must be between 0 and 1." );
+        this.sampleRate = sampleRate;
+        return this;
+    }
+
+    public WireLogConfiguration build() {
+        return new WireLogConfiguration( level, maxBodyBytes, sampleRate );
+    }
+}
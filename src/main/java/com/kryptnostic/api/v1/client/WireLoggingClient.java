@@ -0,0 +1,122 @@
+package com.kryptnostic.api.v1.client;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import retrofit.client.Client;
+import retrofit.client.Header;
+import retrofit.client.Request;
+import retrofit.client.Response;
+import retrofit.mime.TypedByteArray;
+import retrofit.mime.TypedInput;
+import retrofit.mime.TypedOutput;
+
+import com.kryptnostic.api.v1.client.WireLogConfiguration.Level;
+import com.kryptnostic.api.v1.utils.TypedInputs;
+
+/**
+ * Logs http traffic at debug level according to {@link KryptnosticRestAdapter#getWireLogConfiguration()}. Unlike
+ * Retrofit's own logging nothing is formatted unless the request is actually going to be logged, and bodies are
+ * truncated, so leaving wire logging configured costs almost nothing when debug logging is off.
+ */
+public class WireLoggingClient implements Client {
+    private static final Logger logger = LoggerFactory.getLogger( WireLoggingClient.class );
+
+    private final Client        delegate;
+
+    public WireLoggingClient( Client delegate ) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Response execute( Request request ) throws IOException {
+        WireLogConfiguration configuration = KryptnosticRestAdapter.getWireLogConfiguration();
+        if ( configuration.getLevel() == Level.NONE || !logger.isDebugEnabled() || !sampled( configuration ) ) {
+            return delegate.execute( request );
+        }
+
+        Level level = configuration.getLevel();
+        TypedOutput requestBody = request.getBody();
+        logger.debug( "---> {} {} ({}-byte body)",
+                request.getMethod(),
+                request.getUrl(),
+                requestBody == null ? 0 : requestBody.length() );
+        if ( level.compareTo( Level.HEADERS ) >= 0 ) {
+            logHeaders( request.getHeaders() );
+        }
+        if ( level == Level.FULL && requestBody != null ) {
+            logBody( requestBody.mimeType(), requestBody instanceof TypedByteArray ? ( (TypedByteArray) requestBody )
+                    .getBytes() : null, configuration.getMaxBodyBytes() );
+        }
+
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = delegate.execute( request );
+        } catch ( IOException | RuntimeException e ) {
+            logger.debug( "<--- {} {} failed after {} ms: {}",
+                    request.getMethod(),
+                    request.getUrl(),
+                    TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ),
+                    e.toString() );
+            throw e;
+        }
+
+        TypedInput responseBody = response.getBody();
+        logger.debug( "<--- {} {} ({} ms, {}-byte body)",
+                response.getStatus(),
+                response.getUrl(),
+                TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ),
+                responseBody == null ? 0 : responseBody.length() );
+        if ( level.compareTo( Level.HEADERS ) >= 0 ) {
+            logHeaders( response.getHeaders() );
+        }
+        if ( level == Level.FULL && responseBody != null && isText( responseBody.mimeType() ) ) {
+            // The body can only be read once, so buffer it and hand the buffer on to the converter.
+            byte[] bytes = TypedInputs.toByteArray( responseBody );
+            logBody( responseBody.mimeType(), bytes, configuration.getMaxBodyBytes() );
+            return new Response(
+                    response.getUrl(),
+                    response.getStatus(),
+                    response.getReason(),
+                    response.getHeaders(),
+                    new TypedByteArray( responseBody.mimeType(), bytes ) );
+        }
+        return response;
+    }
+
+    private static boolean sampled( WireLogConfiguration configuration ) {
+        double rate = configuration.getSampleRate();
+        return rate >= 1 || ( rate > 0 && ThreadLocalRandom.current().nextDouble() < rate );
+    }
+
+    private static void logHeaders( Iterable<Header> headers ) {
+        for ( Header header : headers ) {
+            logger.debug( "{}: {}", header.getName(), header.getValue() );
+        }
+    }
+
+    private static void logBody( String mimeType, byte[] bytes, int maxBodyBytes ) {
+        if ( bytes == null || !isText( mimeType ) ) {
+            logger.debug( "[{} body not logged]", mimeType );
+            return;
+        }
+        int length = Math.min( bytes.length, maxBodyBytes );
+        String body = new String( bytes, 0, length, StandardCharsets.UTF_8 );
+        if ( length < bytes.length ) {
+            logger.debug( "{}... [{} more bytes]", body, bytes.length - length );
+        } else {
+            logger.debug( "{}", body );
+        }
+    }
+
+    private static boolean isText( String mimeType ) {
+        return StringUtils.containsIgnoreCase( mimeType, "json" ) || StringUtils.startsWithIgnoreCase( mimeType, "text" );
+    }
+}
@@ -47,8 +47,16 @@ public class TokenizingWhitespaceAnalyzer implements Analyzer, QueryAnalyzer {
         return hits;
     }
 
+    /**
+     * Produces the same tokens as {@link #analyze(String)}, without recording their locations.
+     */
     @Override
     public Set<String> analyzeQuery( String query ) {
-        return ImmutableSet.copyOf( analyze( query ).keySet() );
+        Matcher m = onlyWords.matcher( query );
+        ImmutableSet.Builder<String> tokens = ImmutableSet.builder();
+        while ( m.find() ) {
+            tokens.add( m.group().toLowerCase() );
+        }
+        return tokens.build();
     }
 }
@@ -0,0 +1,88 @@
+package com.kryptnostic.api.v1.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Lock free histogram of non-negative values. Values are counted in log-linear buckets, eight per power of two, so a
+ * reported percentile is within 12.5% of the recorded value while the histogram stays a fixed size regardless of how
+ * many values are recorded.
+ */
+public class Histogram {
+    private static final int        SUB_BUCKET_BITS  = 3;
+    private static final int        SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int        BUCKET_COUNT     = ( Long.SIZE - SUB_BUCKET_BITS + 1 ) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray   buckets          = new AtomicLongArray( BUCKET_COUNT );
+    private final AtomicLong        count            = new AtomicLong();
+    private final AtomicLong        sum              = new AtomicLong();
+    private final AtomicLong        max              = new AtomicLong();
+
+    public void record( long value ) {
+        Preconditions.checkArgument( value >= 0, "Histogram values cannot be negative." );
+        buckets.incrementAndGet( bucketOf( value ) );
+        count.incrementAndGet();
+        sum.addAndGet( value );
+        long currentMax;
+        do {
+            currentMax = max.get();
+        } while ( value > currentMax && !max.compareAndSet( currentMax, value ) );
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * @param percentile Between 0 and 100.
+     * @return Upper bound of the bucket holding the value at {@code percentile}, or 0 if nothing has been recorded.
+     */
+    public long getValueAtPercentile( double percentile ) {
+        Preconditions.checkArgument( percentile >= 0 && percentile <= 100, "Percentile must be between 0 and 100." );
+        long n = count.get();
+        if ( n == 0 ) {
+            return 0;
+        }
+        long rank = Math.max( 1, (long) Math.ceil( percentile / 100 * n ) );
+        long seen = 0;
+        for ( int i = 0; i < BUCKET_COUNT; ++i ) {
+            seen += buckets.get( i );
+            if ( seen >= rank ) {
+                return Math.min( upperBoundOf( i ), max.get() );
+            }
+        }
+        return max.get();
+    }
+
+    static int bucketOf( long value ) {
+        if ( value < SUB_BUCKET_COUNT ) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros( value );
+        int subBucket = (int) ( ( value >>> ( exponent - SUB_BUCKET_BITS ) ) & ( SUB_BUCKET_COUNT - 1 ) );
+        return ( exponent - SUB_BUCKET_BITS + 1 ) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long upperBoundOf( int bucket ) {
+        if ( bucket < SUB_BUCKET_COUNT ) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKET_COUNT - 1;
+        long subBucket = SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT;
+        if ( shift + SUB_BUCKET_BITS + 1 >= Long.SIZE - 1 ) {
+            return Long.MAX_VALUE;
+        }
+        return ( ( subBucket + 1 ) << shift ) - 1;
+    }
+}
@@ -0,0 +1,87 @@
+package com.kryptnostic.api.v1.metrics;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Default {@link MetricsRegistry}, which keeps histograms in memory and can be read directly or over JMX.
+ */
+public class InMemoryMetricsRegistry implements MetricsRegistry, MetricsMXBean {
+    private final ConcurrentMap<String, OperationMetrics> endpoints = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, OperationMetrics> phases    = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, AtomicLong>       counters  = Maps.newConcurrentMap();
+
+    @Override
+    public void recordCall( String endpoint, long latencyNanos, long requestBytes, long responseBytes, boolean failed ) {
+        metricsFor( endpoints, endpoint ).record( latencyNanos, requestBytes, responseBytes, failed );
+    }
+
+    @Override
+    public void recordPhase( String phase, long elapsedNanos ) {
+        metricsFor( phases, phase ).record( elapsedNanos, 0, 0, false );
+    }
+
+    @Override
+    public void incrementCounter( String counter ) {
+        AtomicLong count = counters.get( counter );
+        if ( count == null ) {
+            AtomicLong created = new AtomicLong();
+            count = counters.putIfAbsent( counter, created );
+            if ( count == null ) {
+                count = created;
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    @Override
+    public Map<String, MetricsSnapshot> getEndpoints() {
+        return snapshot( endpoints );
+    }
+
+    @Override
+    public Map<String, MetricsSnapshot> getPhases() {
+        return snapshot( phases );
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        ImmutableSortedMap.Builder<String, Long> snapshots = ImmutableSortedMap.naturalOrder();
+        for ( Entry<String, AtomicLong> entry : counters.entrySet() ) {
+            snapshots.put( entry.getKey(), entry.getValue().get() );
+        }
+        return snapshots.build();
+    }
+
+    @Override
+    public void reset() {
+        endpoints.clear();
+        phases.clear();
+        counters.clear();
+    }
+
+    private static OperationMetrics metricsFor( ConcurrentMap<String, OperationMetrics> metrics, String name ) {
+        OperationMetrics operation = metrics.get( name );
+        if ( operation == null ) {
+            OperationMetrics created = new OperationMetrics();
+            operation = metrics.putIfAbsent( name, created );
+            if ( operation == null ) {
+                operation = created;
+            }
+        }
+        return operation;
+    }
+
+    private static Map<String, MetricsSnapshot> snapshot( ConcurrentMap<String, OperationMetrics> metrics ) {
+        ImmutableSortedMap.Builder<String, MetricsSnapshot> snapshots = ImmutableSortedMap.naturalOrder();
+        for ( Entry<String, OperationMetrics> entry : metrics.entrySet() ) {
+            snapshots.put( entry.getKey(), entry.getValue().snapshot() );
+        }
+        return snapshots.build();
+    }
+}
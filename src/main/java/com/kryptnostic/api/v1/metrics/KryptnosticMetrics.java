@@ -0,0 +1,70 @@
+package com.kryptnostic.api.v1.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+
+/**
+ * Entry point for client instrumentation. Measurements go to an in memory registry by default, which can be replaced
+ * to forward them to another metrics system.
+ */
+public final class KryptnosticMetrics {
+    private static final Logger             logger      = LoggerFactory.getLogger( KryptnosticMetrics.class );
+    public static final String              OBJECT_NAME = "com.kryptnostic:type=Metrics";
+
+    public static final String              INDEXING    = "indexing";
+    public static final String              MAPPING     = "mapping";
+    public static final String              ENCRYPTION  = "encryption";
+    public static final String              DECRYPTION  = "decryption";
+    public static final String              KEY_LOADING = "key-loading";
+    public static final String              SEARCH      = "search";
+
+    private static volatile MetricsRegistry registry    = new InMemoryMetricsRegistry();
+
+    private KryptnosticMetrics() {}
+
+    public static MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    public static void setRegistry( MetricsRegistry registry ) {
+        KryptnosticMetrics.registry = Preconditions.checkNotNull( registry, "Metrics registry cannot be null." );
+    }
+
+    public static void recordPhase( String phase, Stopwatch watch ) {
+        registry.recordPhase( phase, watch.elapsed( TimeUnit.NANOSECONDS ) );
+    }
+
+    /**
+     * Registers the current registry with the platform MBean server under {@link #OBJECT_NAME}, if it supports JMX.
+     *
+     * @return True if the registry was registered.
+     */
+    public static boolean registerMBean() {
+        MetricsRegistry current = registry;
+        if ( !( current instanceof MetricsMXBean ) ) {
+            return false;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName( OBJECT_NAME );
+            if ( server.isRegistered( name ) ) {
+                server.unregisterMBean( name );
+            }
+            server.registerMBean( current, name );
+            return true;
+        } catch ( JMException e ) {
+            logger.warn( "Unable to register metrics MBean.", e );
+            return false;
+        }
+    }
+}
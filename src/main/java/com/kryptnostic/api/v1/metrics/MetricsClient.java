@@ -0,0 +1,81 @@
+package com.kryptnostic.api.v1.metrics;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.regex.Pattern;
+
+import retrofit.client.Client;
+import retrofit.client.Request;
+import retrofit.client.Response;
+
+/**
+ * {@link Client} that reports the latency, body sizes and outcome of every call to {@link KryptnosticMetrics}. Calls
+ * are grouped by http method and path, with ids replaced by {@code {id}} so that each API method gets one entry.
+ */
+public class MetricsClient implements Client {
+    private static final Pattern ID_SEGMENT = Pattern
+                                                    .compile( "^([0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}|[0-9]+)$" );
+
+    private final Client         delegate;
+
+    public MetricsClient( Client delegate ) {
+        this.delegate = delegate;
+    }
+
+    public Client getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Response execute( Request request ) throws IOException {
+        long start = System.nanoTime();
+        long requestBytes = request.getBody() == null ? 0 : request.getBody().length();
+        Response response = null;
+        try {
+            response = delegate.execute( request );
+            return response;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            long responseBytes = response == null || response.getBody() == null ? -1 : response.getBody().length();
+            boolean failed = response == null || response.getStatus() >= 400;
+            KryptnosticMetrics.getRegistry().recordCall( endpointOf( request ),
+                    elapsed,
+                    requestBytes,
+                    responseBytes,
+                    failed );
+        }
+    }
+
+    static String endpointOf( Request request ) {
+        String path = pathOf( request.getUrl() );
+        StringBuilder endpoint = new StringBuilder( request.getMethod() ).append( ' ' );
+        for ( String segment : path.split( "/" ) ) {
+            if ( segment.isEmpty() ) {
+                continue;
+            }
+            endpoint.append( '/' ).append( ID_SEGMENT.matcher( segment ).matches() ? "{id}" : segment );
+        }
+        return endpoint.toString();
+    }
+
+    /**
+     * Called from a finally block, so it must never throw. Urls that don't parse are cut down to their path by hand.
+     */
+    private static String pathOf( String url ) {
+        try {
+            String path = URI.create( url ).getRawPath();
+            if ( path != null ) {
+                return path;
+            }
+        } catch ( IllegalArgumentException e ) {
+            // Fall back to the raw path below.
+        }
+        int scheme = url.indexOf( "://" );
+        int start = scheme < 0 ? 0 : url.indexOf( '/', scheme + 3 );
+        if ( start < 0 ) {
+            return "";
+        }
+        int end = url.indexOf( '?', start );
+        return url.substring( start, end < 0 ? url.length() : end );
+    }
+}
@@ -0,0 +1,13 @@
+package com.kryptnostic.api.v1.metrics;
+
+import java.util.Map;
+
+public interface MetricsMXBean {
+    Map<String, MetricsSnapshot> getEndpoints();
+
+    Map<String, MetricsSnapshot> getPhases();
+
+    Map<String, Long> getCounters();
+
+    void reset();
+}
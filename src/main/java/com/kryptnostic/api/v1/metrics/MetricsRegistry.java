@@ -0,0 +1,27 @@
+package com.kryptnostic.api.v1.metrics;
+
+/**
+ * Receives the measurements taken by the client. Implementations must be thread safe and cheap, since they are called
+ * inline on every request. Install one with {@link KryptnosticMetrics#setRegistry(MetricsRegistry)}.
+ */
+public interface MetricsRegistry {
+    /**
+     * Records a completed HTTP call.
+     *
+     * @param endpoint Http method and path template, for example {@code GET /objects/{id}}.
+     * @param requestBytes Size of the request body, or -1 if unknown.
+     * @param responseBytes Size of the response body, or -1 if unknown.
+     * @param failed True if the call threw or the server answered with an error status.
+     */
+    void recordCall( String endpoint, long latencyNanos, long requestBytes, long responseBytes, boolean failed );
+
+    /**
+     * Records a client side phase, such as indexing or encryption.
+     */
+    void recordPhase( String phase, long elapsedNanos );
+
+    /**
+     * Counts an event, such as a retried request.
+     */
+    void incrementCounter( String counter );
+}
@@ -0,0 +1,89 @@
+package com.kryptnostic.api.v1.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Point in time view of an {@link OperationMetrics}. Latencies are in microseconds.
+ */
+public class MetricsSnapshot {
+    private final long   count;
+    private final long   errors;
+    private final long   p50Micros;
+    private final long   p99Micros;
+    private final long   p999Micros;
+    private final long   maxMicros;
+    private final double meanMicros;
+    private final long   requestBytes;
+    private final long   responseBytes;
+
+    @ConstructorProperties( {
+            "count", "errors", "p50Micros", "p99Micros", "p999Micros", "maxMicros", "meanMicros", "requestBytes",
+            "responseBytes" } )
+    public MetricsSnapshot(
+            long count,
+            long errors,
+            long p50Micros,
+            long p99Micros,
+            long p999Micros,
+            long maxMicros,
+            double meanMicros,
+            long requestBytes,
+            long responseBytes ) {
+        this.count = count;
+        this.errors = errors;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+        this.meanMicros = meanMicros;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getErrorRate() {
+        return count == 0 ? 0 : (double) errors / count;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot [count=" + count + ", errors=" + errors + ", p50Micros=" + p50Micros + ", p99Micros="
+                + p99Micros + ", p999Micros=" + p999Micros + ", maxMicros=" + maxMicros + ", requestBytes="
+                + requestBytes + ", responseBytes=" + responseBytes + "]";
+    }
+}
@@ -0,0 +1,40 @@
+package com.kryptnostic.api.v1.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals for a single API call or client side phase. Latencies are kept in microseconds.
+ */
+public class OperationMetrics {
+    private final Histogram  latencyMicros = new Histogram();
+    private final AtomicLong errors        = new AtomicLong();
+    private final AtomicLong requestBytes  = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+
+    public void record( long latencyNanos, long requestBytes, long responseBytes, boolean failed ) {
+        latencyMicros.record( TimeUnit.NANOSECONDS.toMicros( Math.max( 0, latencyNanos ) ) );
+        if ( requestBytes > 0 ) {
+            this.requestBytes.addAndGet( requestBytes );
+        }
+        if ( responseBytes > 0 ) {
+            this.responseBytes.addAndGet( responseBytes );
+        }
+        if ( failed ) {
+            errors.incrementAndGet();
+        }
+    }
+
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(
+                latencyMicros.getCount(),
+                errors.get(),
+                latencyMicros.getValueAtPercentile( 50 ),
+                latencyMicros.getValueAtPercentile( 99 ),
+                latencyMicros.getValueAtPercentile( 99.9 ),
+                latencyMicros.getMax(),
+                latencyMicros.getMean(),
+                requestBytes.get(),
+                responseBytes.get() );
+    }
+}
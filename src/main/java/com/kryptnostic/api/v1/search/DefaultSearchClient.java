@@ -1,23 +1,48 @@
 package com.kryptnostic.api.v1.search;
 
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.kryptnostic.api.v1.KryptnosticConnection;
-import com.kryptnostic.api.v1.KryptnosticCryptoManager;
-import com.kryptnostic.api.v1.indexing.SimpleIndexer;
-import com.kryptnostic.kodex.v1.indexing.Indexer;
+import com.kryptnostic.api.v1.metrics.KryptnosticMetrics;
+import com.kryptnostic.api.v1.metrics.MetricsRegistry;
+import com.kryptnostic.api.v1.search.SearchProfile.Phase;
+import com.kryptnostic.kodex.v1.indexing.QueryAnalyzer;
 import com.kryptnostic.kodex.v1.indexing.analysis.Analyzer;
 import com.kryptnostic.search.v1.SearchClient;
+import com.kryptnostic.v2.indexing.Indexer;
+import com.kryptnostic.v2.indexing.SimpleIndexer;
+import com.kryptnostic.v2.indexing.metadata.Metadata;
 import com.kryptnostic.v2.search.SearchResult;
+import com.kryptnostic.v2.storage.models.VersionedObjectKey;
 
 /**
  * Default implementation of SearchService. Must use same IndexingService as the KryptnosticConnection.
@@ -27,17 +52,109 @@ import com.kryptnostic.v2.search.SearchResult;
  *
  */
 public class DefaultSearchClient implements SearchClient {
-    private final Indexer               indexer;
-    private final KryptnosticConnection connection;
+    private static final Logger               logger      = LoggerFactory.getLogger( DefaultSearchClient.class );
+    private static final SearchResultListener NO_LISTENER = new SearchResultListener() {
+                                                              @Override
+                                                              public void onResults( Set<SearchResult> results ) {}
+                                                          };
+
+    private final Indexer                     indexer;
+    private final KryptnosticConnection       connection;
+    private final SearchResultPipeline        pipeline;
+    private final ParallelQueryBuilder        queryBuilder;
+    private final Optional<SearchPrefetcher>  prefetcher;
+    private final SlowQueryLog                slowQueryLog     = new SlowQueryLog();
+    private final List<SearchProfileListener> profileListeners = new CopyOnWriteArrayList<>();
 
     public DefaultSearchClient( KryptnosticConnection connection ) {
+        this( connection, null );
+    }
+
+    /**
+     * @param prefetcher Loads the top hits of every search in the background, or null to disable prefetching. Each new
+     *            search cancels the previous prefetch.
+     */
+    public DefaultSearchClient( KryptnosticConnection connection, SearchPrefetcher prefetcher ) {
+        this( connection, new SimpleIndexer(), prefetcher );
+    }
+
+    /**
+     * @param indexer The indexer objects were stored with, usually
+     *            {@link com.kryptnostic.api.v1.storage.KryptnosticStorageClient#getIndexer()}, so that search terms are
+     *            analyzed with the same analyzers as the indexed objects.
+     * @param prefetcher Loads the top hits of every search in the background, or null to disable prefetching.
+     */
+    public DefaultSearchClient( KryptnosticConnection connection, Indexer indexer, SearchPrefetcher prefetcher ) {
         this.connection = connection;
-        this.indexer = new SimpleIndexer();
+        this.indexer = Preconditions.checkNotNull( indexer, "Indexer cannot be null." );
+        this.pipeline = new SearchResultPipeline( connection );
+        this.queryBuilder = new ParallelQueryBuilder( connection );
+        this.prefetcher = Optional.fromNullable( prefetcher );
+        this.profileListeners.add( slowQueryLog );
+    }
+
+    /**
+     * Registers {@code listener} to be notified with the {@link SearchProfile} of every search made by this client.
+     */
+    public void addSearchProfileListener( SearchProfileListener listener ) {
+        profileListeners.add( Preconditions.checkNotNull( listener, "Listener cannot be null." ) );
+    }
+
+    public void removeSearchProfileListener( SearchProfileListener listener ) {
+        profileListeners.remove( listener );
     }
 
+    /**
+     * @return The slow query log, registered by default, whose threshold can be adjusted or which can be removed with
+     *         {@link #removeSearchProfileListener(SearchProfileListener)}.
+     */
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    /**
+     * Results are served from the connection's {@link SearchResultCache} when the same analyzed terms were searched
+     * before and no write has invalidated them since.
+     */
     @Override
     public Set<SearchResult> search( List<String> searchTerms ) {
-        return submitTermQuery( buildTermQuery( searchTerms ) );
+        cancelPrefetch();
+        SearchProfile profile = new SearchProfile( "terms" );
+        Set<String> terms = analyze( searchTerms, profile );
+        SearchResultCache cache = connection.getSearchResultCache();
+        Set<SearchResult> cached = cache.getIfPresent( terms );
+        if ( cached != null ) {
+            profile.setCached( true );
+            complete( profile, cached.size() );
+            return cached;
+        }
+
+        final Set<SearchResult> found = Sets.newConcurrentHashSet();
+        final Set<UUID> objectIds = Sets.newConcurrentHashSet();
+        Set<SearchResult> results;
+        long generation = cache.begin( terms );
+        try {
+            Map<byte[], byte[]> query = queryBuilder.build( terms, profile );
+            if ( !query.isEmpty() ) {
+                await( pipeline.resolveMetadata( fetchHits( query, profile ), new MetadataListener() {
+                    @Override
+                    public void onMetadata( List<Metadata> metadata ) {
+                        for ( Metadata metadatum : metadata ) {
+                            found.add( SearchResultPipeline.toSearchResult( metadatum ) );
+                            objectIds.add( metadatum.getObjectKey().getObjectId() );
+                        }
+                    }
+                }, profile ) );
+            }
+            // Immutable like the cached results, so callers see the same kind of set either way.
+            results = ImmutableSet.copyOf( found );
+            cache.put( terms, results, objectIds, generation );
+        } finally {
+            cache.end( terms );
+        }
+        prefetch( objectIds );
+        complete( profile, results.size() );
+        return results;
     }
 
     /**
@@ -52,38 +169,293 @@ public class DefaultSearchClient implements SearchClient {
 
     @Override
     public Set<SearchResult> submitTermQuery( Map<byte[], byte[]> query ) {
-        return new HashSet<SearchResult>();
+        return await( submitTermQuery( query, NO_LISTENER ) );
     }
 
     /**
-     * @return SearchRequest based on search tokens, the ciphertext to be submitted to KryptnosticSearch.
+     * Submits {@code query} and resolves the hits in the background, reporting them to {@code listener} in batches as
+     * they are decrypted.
+     *
+     * @return A future for the complete set of results.
      */
-    @Override
-    public Map<byte[], byte[]> buildTermQuery( List<String> searchTerms ) {
+    public ListenableFuture<Set<SearchResult>> submitTermQuery(
+            Map<byte[], byte[]> query,
+            SearchResultListener listener ) {
+        Preconditions.checkArgument( query != null, "Cannot pass null query param." );
+        if ( query.isEmpty() ) {
+            return Futures.<Set<SearchResult>> immediateFuture( ImmutableSet.<SearchResult> of() );
+        }
+        final SearchProfile profile = new SearchProfile( "query" );
+        profile.setTermCount( query.size() );
+        ListenableFuture<Set<SearchResult>> results = pipeline
+                .resolve( fetchHits( query, profile ), listener, profile );
+        Futures.addCallback( results, new FutureCallback<Set<SearchResult>>() {
+            @Override
+            public void onSuccess( Set<SearchResult> results ) {
+                complete( profile, results.size() );
+            }
 
-        Preconditions.checkArgument( searchTerms != null, "Cannot pass null tokens param." );
+            @Override
+            public void onFailure( Throwable t ) {
+                complete( profile, 0 );
+            }
+        } );
+        return results;
+    }
+
+    /**
+     * Searches for {@code searchTerms} and ranks the matched objects by how often the terms occur in them. Only scores
+     * are kept while hits are resolved, and the returned future completes with the first page once every hit has been
+     * scored.
+     *
+     * @param pageSize Maximum number of results per page.
+     * @return A future for the first page of results, best first.
+     */
+    public ListenableFuture<SearchPage> search( List<String> searchTerms, final int pageSize ) {
+        Preconditions.checkArgument( pageSize > 0, "Page size must be positive." );
+        cancelPrefetch();
+        final SearchProfile profile = new SearchProfile( "ranked" );
+        Map<byte[], byte[]> query = queryBuilder.build( analyze( searchTerms, profile ), profile );
+        if ( query.isEmpty() ) {
+            complete( profile, 0 );
+            return Futures.immediateFuture( SearchCursor.start( ImmutableList.<RankedSearchResult> of(), pageSize )
+                    .fetch() );
+        }
+        final HitScores scores = new HitScores();
+        ListenableFuture<SearchPage> firstPage = Futures.transform(
+                pipeline.resolveMetadata( fetchHits( query, profile ), scores, profile ),
+                new AsyncFunction<Integer, SearchPage>() {
+                    @Override
+                    public ListenableFuture<SearchPage> apply( Integer resolved ) {
+                        Stopwatch watch = Stopwatch.createStarted();
+                        SearchPage page = SearchCursor.start( scores.getResults(), pageSize ).fetch();
+                        profile.record( Phase.RANKING, watch );
+                        List<UUID> objectIds = Lists.newArrayListWithCapacity( page.getResults().size() );
+                        for ( RankedSearchResult result : page.getResults() ) {
+                            objectIds.add( result.getObjectKey().getObjectId() );
+                        }
+                        prefetch( objectIds );
+                        return Futures.immediateFuture( page );
+                    }
+                } );
+        Futures.addCallback( firstPage, new FutureCallback<SearchPage>() {
+            @Override
+            public void onSuccess( SearchPage page ) {
+                complete( profile, page.getResults().size() );
+            }
+
+            @Override
+            public void onFailure( Throwable t ) {
+                complete( profile, 0 );
+            }
+        } );
+        return firstPage;
+    }
+
+    /**
+     * @return The page of results following {@code cursor}.
+     */
+    public SearchPage nextPage( SearchCursor cursor ) {
+        return Preconditions.checkNotNull( cursor, "Cursor cannot be null." ).fetch();
+    }
+
+    /**
+     * Runs several searches at once. Terms shared between queries are analyzed into a single search token each, all
+     * queries go to the server as one request, and the decrypted hits are routed back to every query containing their
+     * term. The cost of the call grows with the number of distinct terms rather than the number of queries.
+     *
+     * @param queries Search terms, keyed by query id.
+     * @return Results keyed by query id. Every query id is present, with an empty set if nothing matched.
+     */
+    public Map<String, Set<SearchResult>> searchAll( Map<String, List<String>> queries ) {
+        Preconditions.checkArgument( queries != null, "Cannot pass null queries param." );
+        SearchProfile profile = new SearchProfile( "batch" );
+        Stopwatch watch = Stopwatch.createStarted();
+        final SetMultimap<String, String> queriesByTerm = HashMultimap.create();
+        for ( Entry<String, List<String>> query : queries.entrySet() ) {
+            Preconditions.checkArgument(
+                    query.getValue() != null,
+                    "Cannot pass null terms for query %s.",
+                    query.getKey() );
+            for ( String searchTerm : query.getValue() ) {
+                for ( String term : analyzeQuery( searchTerm ) ) {
+                    queriesByTerm.put( term, query.getKey() );
+                }
+            }
+        }
+
+        profile.record( Phase.ANALYSIS, watch );
+        profile.setTermCount( queriesByTerm.keySet().size() );
+
+        final Map<String, Set<SearchResult>> results = Maps.newHashMapWithExpectedSize( queries.size() );
+        for ( String queryId : queries.keySet() ) {
+            results.put( queryId, Sets.<SearchResult> newHashSet() );
+        }
+        Map<byte[], byte[]> query = queryBuilder.build( queriesByTerm.keySet(), profile );
+        if ( query.isEmpty() ) {
+            complete( profile, 0 );
+            return results;
+        }
 
-        Iterable<String> analyzedTerms = Iterables
-                .concat( Lists.transform( searchTerms, new Function<String, Iterable<String>>() {
+        await( pipeline.resolveMetadata( fetchHits( query, profile ), new MetadataListener() {
+            @Override
+            public void onMetadata( List<Metadata> metadata ) {
+                synchronized ( results ) {
+                    for ( Metadata metadatum : metadata ) {
+                        SearchResult result = SearchResultPipeline.toSearchResult( metadatum );
+                        for ( String queryId : queriesByTerm.get( metadatum.getTerm() ) ) {
+                            results.get( queryId ).add( result );
+                        }
+                    }
+                }
+            }
+        }, profile ) );
+
+        int resultCount = 0;
+        for ( Set<SearchResult> queryResults : results.values() ) {
+            resultCount += queryResults.size();
+        }
+        complete( profile, resultCount );
+        return results;
+    }
+
+    /**
+     * Searches for objects containing {@code phrase}. Candidates from the term search are verified against their
+     * decrypted term locations, so objects that merely contain every term are dropped before anything is downloaded.
+     *
+     * @return A future for the keys of the objects containing the phrase, which is empty without a server round trip
+     *         if no token of the phrase is long enough to have been indexed.
+     */
+    public ListenableFuture<Set<VersionedObjectKey>> searchPhrase( String phrase ) {
+        Preconditions.checkArgument( phrase != null, "Cannot pass null phrase param." );
+        SearchProfile profile = new SearchProfile( "phrase" );
+        Stopwatch watch = Stopwatch.createStarted();
+        PhraseQueryEvaluator evaluator = PhraseQueryEvaluator.phrase( analyzePhrase( phrase ) );
+        profile.record( Phase.ANALYSIS, watch );
+        return evaluate( evaluator, profile );
+    }
+
+    /**
+     * Searches for objects in which every one of {@code searchTerms} occurs within {@code maxDistance} characters of
+     * the others. Term locations are character offsets, so the distance is measured in characters rather than words.
+     *
+     * @return A future for the keys of the matching objects.
+     */
+    public ListenableFuture<Set<VersionedObjectKey>> searchNear( List<String> searchTerms, int maxDistance ) {
+        SearchProfile profile = new SearchProfile( "near" );
+        return evaluate( PhraseQueryEvaluator.near( analyze( searchTerms, profile ), maxDistance ), profile );
+    }
 
+    private ListenableFuture<Set<VersionedObjectKey>> evaluate(
+            final PhraseQueryEvaluator evaluator,
+            final SearchProfile profile ) {
+        cancelPrefetch();
+        profile.setTermCount( evaluator.getTerms().size() );
+        Map<byte[], byte[]> query = queryBuilder.build( evaluator.getTerms(), profile );
+        if ( query.isEmpty() ) {
+            complete( profile, 0 );
+            return Futures.<Set<VersionedObjectKey>> immediateFuture( ImmutableSet.<VersionedObjectKey> of() );
+        }
+        final PostingsCollector postings = new PostingsCollector();
+        ListenableFuture<Set<VersionedObjectKey>> results = Futures.transform(
+                pipeline.resolveMetadata( fetchHits( query, profile ), postings, profile ),
+                new AsyncFunction<Integer, Set<VersionedObjectKey>>() {
                     @Override
-                    public Iterable<String> apply( String searchTerm ) {
-                        return analyzeQuery( searchTerm );
+                    public ListenableFuture<Set<VersionedObjectKey>> apply( Integer resolved ) {
+                        Stopwatch watch = Stopwatch.createStarted();
+                        Set<VersionedObjectKey> matches = evaluator.filter( postings.getPostings() );
+                        profile.record( Phase.RANKING, watch );
+                        List<UUID> objectIds = Lists.newArrayListWithCapacity( matches.size() );
+                        for ( VersionedObjectKey match : matches ) {
+                            objectIds.add( match.getObjectId() );
+                        }
+                        prefetch( objectIds );
+                        return Futures.immediateFuture( matches );
                     }
-                } ) );
+                } );
+        Futures.addCallback( results, new FutureCallback<Set<VersionedObjectKey>>() {
+            @Override
+            public void onSuccess( Set<VersionedObjectKey> matches ) {
+                complete( profile, matches.size() );
+            }
+
+            @Override
+            public void onFailure( Throwable t ) {
+                complete( profile, 0 );
+            }
+        } );
+        return results;
+    }
 
-        Map<byte[], byte[]> termQuery = Maps.newHashMap();
-        KryptnosticCryptoManager crypto = connection.newCryptoManager();
+    /**
+     * @return Keys of the encrypted metadata objects, as stored by the storage client when indexing, that match
+     *         {@code query}.
+     */
+    private Set<VersionedObjectKey> fetchHits( Map<byte[], byte[]> query, SearchProfile profile ) {
+        Stopwatch watch = Stopwatch.createStarted();
+        Set<VersionedObjectKey> hits = connection.getSearchApi().submitTermQuery( query );
+        profile.record( Phase.SERVER, watch );
+        profile.setHitCount( hits.size() );
+        return hits;
+    }
 
-        for ( String analyzedTerm : analyzedTerms ) {
-            termQuery.put( crypto.computeSearchToken( analyzedTerm ), crypto.prepareSearchToken( analyzedTerm ) );
+    /**
+     * Records the phases of a completed search as histograms named "search.&lt;phase&gt;" and notifies profile
+     * listeners.
+     */
+    private void complete( SearchProfile profile, int resultCount ) {
+        profile.finish( resultCount );
+        MetricsRegistry registry = KryptnosticMetrics.getRegistry();
+        for ( Entry<Phase, Long> phase : profile.getPhaseNanos().entrySet() ) {
+            if ( phase.getValue() > 0 ) {
+                registry.recordPhase( KryptnosticMetrics.SEARCH + "." + phase.getKey().getName(), phase.getValue() );
+            }
+        }
+        registry.recordPhase( KryptnosticMetrics.SEARCH + ".total", profile.getTotalNanos() );
+        for ( SearchProfileListener listener : profileListeners ) {
+            try {
+                listener.onSearchCompleted( profile );
+            } catch ( RuntimeException e ) {
+                logger.warn( "Search profile listener {} failed.", listener, e );
+            }
         }
+    }
+
+    /**
+     * @return SearchRequest based on search tokens, the ciphertext to be submitted to KryptnosticSearch.
+     */
+    @Override
+    public Map<byte[], byte[]> buildTermQuery( List<String> searchTerms ) {
+
+        return queryBuilder.build( analyzeTerms( searchTerms ) );
+    }
+
+    /**
+     * @return The distinct analyzed terms of {@code searchTerms}, in a normalized order.
+     */
+    private Set<String> analyze( List<String> searchTerms, SearchProfile profile ) {
+        Stopwatch watch = Stopwatch.createStarted();
+        Set<String> terms = SearchResultCache.normalize( analyzeTerms( searchTerms ) );
+        profile.record( Phase.ANALYSIS, watch );
+        profile.setTermCount( terms.size() );
+        return terms;
+    }
+
+    private Iterable<String> analyzeTerms( List<String> searchTerms ) {
+        Preconditions.checkArgument( searchTerms != null, "Cannot pass null tokens param." );
 
-        return termQuery;
+        return Iterables.concat( Lists.transform( searchTerms, new Function<String, Iterable<String>>() {
+
+            @Override
+            public Iterable<String> apply( String searchTerm ) {
+                return analyzeQuery( searchTerm );
+            }
+        } ) );
     }
 
     /**
-     * @return List<String> of unique tokens, the plaintext to be searched for in stored documents.
+     * @return Unique tokens of {@code query}, the plaintext to be searched for in stored documents. Analyzers that
+     *         support it only tokenize the query, without building the locations needed for indexing.
      */
     private Iterable<String> analyzeQuery( final String query ) {
         Preconditions.checkArgument( query != null, "Cannot pass null query param." );
@@ -92,9 +464,50 @@ public class DefaultSearchClient implements SearchClient {
 
             @Override
             public Set<String> apply( Analyzer input ) {
+                if ( input instanceof QueryAnalyzer ) {
+                    return ( (QueryAnalyzer) input ).analyzeQuery( query );
+                }
                 return input.analyze( query ).keySet();
             }
         } ) );
     }
 
+    /**
+     * @return Analyzed tokens of {@code phrase}, in the order they occur. Tokens too short to be indexed are kept so
+     *         that {@link PhraseQueryEvaluator#phrase(List)} can allow for them when matching.
+     */
+    private List<String> analyzePhrase( String phrase ) {
+        SortedMap<Integer, String> terms = Maps.newTreeMap();
+        for ( Analyzer analyzer : indexer.getAnalyzers() ) {
+            for ( Entry<String, List<List<Integer>>> term : analyzer.analyze( phrase ).entrySet() ) {
+                for ( List<Integer> bucket : term.getValue() ) {
+                    for ( Integer location : bucket ) {
+                        terms.put( location, term.getKey() );
+                    }
+                }
+            }
+        }
+        return ImmutableList.copyOf( terms.values() );
+    }
+
+    private void prefetch( Iterable<UUID> objectIds ) {
+        if ( prefetcher.isPresent() ) {
+            prefetcher.get().prefetch( objectIds );
+        }
+    }
+
+    private void cancelPrefetch() {
+        if ( prefetcher.isPresent() ) {
+            prefetcher.get().cancel();
+        }
+    }
+
+    private static <T> T await( ListenableFuture<T> future ) {
+        try {
+            return Uninterruptibles.getUninterruptibly( future );
+        } catch ( ExecutionException e ) {
+            throw Throwables.propagate( e.getCause() );
+        }
+    }
+
 }
@@ -0,0 +1,59 @@
+package com.kryptnostic.api.v1.search;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.kryptnostic.v2.indexing.metadata.Metadata;
+import com.kryptnostic.v2.storage.models.VersionedObjectKey;
+
+/**
+ * Accumulates a score per matched object from decrypted index metadata. Each metadatum is one location bucket for a
+ * term, padded with negative values, so an object's score is the number of non-negative locations across all of its
+ * buckets. Only the score and matched terms are kept, not the locations themselves.
+ */
+class HitScores implements MetadataListener {
+    private final Map<VersionedObjectKey, Score> scores = Maps.newHashMap();
+
+    @Override
+    public void onMetadata( List<Metadata> metadata ) {
+        synchronized ( scores ) {
+            for ( Metadata metadatum : metadata ) {
+                Score score = scores.get( metadatum.getObjectKey() );
+                if ( score == null ) {
+                    score = new Score();
+                    scores.put( metadatum.getObjectKey(), score );
+                }
+                score.terms.add( metadatum.getTerm() );
+                for ( Integer location : metadatum.getLocations() ) {
+                    if ( location != null && location >= 0 ) {
+                        score.hits++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return A scored result for every object seen so far, in no particular order.
+     */
+    List<RankedSearchResult> getResults() {
+        synchronized ( scores ) {
+            List<RankedSearchResult> results = Lists.newArrayListWithCapacity( scores.size() );
+            for ( Entry<VersionedObjectKey, Score> entry : scores.entrySet() ) {
+                Score score = entry.getValue();
+                results.add( new RankedSearchResult( entry.getKey(), score.hits, score.terms ) );
+            }
+            return results;
+        }
+    }
+
+    private static final class Score {
+        private final Set<String> terms = Sets.newHashSet();
+        private int               hits;
+    }
+}
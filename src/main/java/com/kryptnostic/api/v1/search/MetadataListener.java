@@ -0,0 +1,15 @@
+package com.kryptnostic.api.v1.search;
+
+import java.util.List;
+
+import com.kryptnostic.v2.indexing.metadata.Metadata;
+
+/**
+ * Receives decrypted index metadata for search hits as it becomes available.
+ */
+public interface MetadataListener {
+    /**
+     * Called once per batch of resolved hits, possibly concurrently from worker threads.
+     */
+    void onMetadata( List<Metadata> metadata );
+}
@@ -0,0 +1,135 @@
+package com.kryptnostic.api.v1.search;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.kryptnostic.api.v1.KryptnosticConnection;
+import com.kryptnostic.api.v1.KryptnosticCryptoManager;
+import com.kryptnostic.api.v1.client.DefaultKryptnosticCryptoManager;
+import com.kryptnostic.api.v1.search.SearchProfile.Phase;
+import com.kryptnostic.api.v1.security.KryptnosticEnginePool;
+import com.kryptnostic.api.v1.security.KryptnosticEnginePool.EngineTask;
+import com.kryptnostic.api.v1.utils.KryptnosticExecutors;
+import com.kryptnostic.krypto.engine.KryptnosticEngine;
+
+/**
+ * Builds term queries, preparing the search tokens of uncached terms concurrently on the connection's
+ * {@link KryptnosticEnginePool}. Terms are deduplicated first, so each distinct term is prepared once and appears in
+ * the query once.
+ */
+public class ParallelQueryBuilder {
+    private final KryptnosticConnection connection;
+
+    public ParallelQueryBuilder( KryptnosticConnection connection ) {
+        this.connection = connection;
+    }
+
+    public Map<byte[], byte[]> build( Iterable<String> analyzedTerms ) {
+        return build( analyzedTerms, new SearchProfile( "build" ) );
+    }
+
+    /**
+     * Like {@link #build(Iterable)}, recording the time spent preparing search tokens to {@code profile}.
+     */
+    public Map<byte[], byte[]> build( Iterable<String> analyzedTerms, SearchProfile profile ) {
+        Map<String, SearchToken> tokens = prepare( ImmutableSet.copyOf( analyzedTerms ), profile );
+        Map<byte[], byte[]> termQuery = Maps.newLinkedHashMap();
+        for ( SearchToken token : tokens.values() ) {
+            termQuery.put( token.getToken(), token.getEncryptedSearchToken() );
+        }
+        return termQuery;
+    }
+
+    /**
+     * @return The search token for each of {@code terms}, in the same order.
+     */
+    public Map<String, SearchToken> prepare( Set<String> terms ) {
+        return prepare( terms, new SearchProfile( "prepare" ) );
+    }
+
+    public Map<String, SearchToken> prepare( Set<String> terms, SearchProfile profile ) {
+        SearchTokenCache cache = connection.getSearchTokenCache();
+        Map<String, SearchToken> tokens = Maps.newLinkedHashMap();
+        List<String> missing = Lists.newArrayList();
+        for ( String term : terms ) {
+            SearchToken token = cache.getIfPresent( term );
+            // Keep the term's position so the query comes out in the same order either way.
+            tokens.put( term, token );
+            if ( token == null ) {
+                missing.add( term );
+            }
+        }
+
+        if ( missing.size() == 1 ) {
+            String term = missing.get( 0 );
+            tokens.put( term, cache.get( term, preparer( term, profile ) ) );
+        } else if ( !missing.isEmpty() ) {
+            Map<String, ListenableFuture<SearchToken>> prepared = Maps.newHashMap();
+            for ( String term : missing ) {
+                prepared.put( term, ExecutorHolder.EXECUTOR.submit( cached( cache, term, profile ) ) );
+            }
+            for ( Entry<String, ListenableFuture<SearchToken>> entry : prepared.entrySet() ) {
+                try {
+                    tokens.put( entry.getKey(), Uninterruptibles.getUninterruptibly( entry.getValue() ) );
+                } catch ( ExecutionException e ) {
+                    throw Throwables.propagate( e.getCause() );
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private Callable<SearchToken> cached(
+            final SearchTokenCache cache,
+            final String term,
+            final SearchProfile profile ) {
+        return new Callable<SearchToken>() {
+            @Override
+            public SearchToken call() {
+                return cache.get( term, preparer( term, profile ) );
+            }
+        };
+    }
+
+    private Callable<SearchToken> preparer( final String term, final SearchProfile profile ) {
+        final KryptnosticCryptoManager crypto = connection.newCryptoManager();
+        final KryptnosticEnginePool engines = connection.getKryptnosticEnginePool();
+        return new Callable<SearchToken>() {
+            @Override
+            public SearchToken call() {
+                Stopwatch watch = Stopwatch.createStarted();
+                byte[] encryptedSearchToken = engines.execute( new EngineTask<byte[]>() {
+                    @Override
+                    public byte[] run( KryptnosticEngine engine ) {
+                        return engine.getEncryptedSearchToken( DefaultKryptnosticCryptoManager.getHashedToken( term ) );
+                    }
+                } );
+                profile.record( Phase.FHE, watch );
+
+                watch.reset().start();
+                byte[] token = crypto.computeSearchToken( term );
+                profile.record( Phase.HMAC, watch );
+                return new SearchToken( token, encryptedSearchToken );
+            }
+        };
+    }
+
+    private static final class ExecutorHolder {
+        private static final ListeningExecutorService EXECUTOR = KryptnosticExecutors.newFixedThreadPool(
+                                                                       "search-token",
+                                                                       Runtime.getRuntime()
+                                                                               .availableProcessors() );
+    }
+}
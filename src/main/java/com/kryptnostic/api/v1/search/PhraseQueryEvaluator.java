@@ -0,0 +1,195 @@
+package com.kryptnostic.api.v1.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
+import com.kryptnostic.v2.indexing.PaddedMetadataMapper;
+import com.kryptnostic.v2.storage.models.VersionedObjectKey;
+
+/**
+ * Verifies phrase and proximity queries against the decrypted term locations of an object. Locations are the character
+ * offsets recorded by the analyzer, so they can be checked without downloading the object itself.
+ * <p>
+ * A phrase matches when each term starts at most {@code maxGap} characters after the end of the previous one. The
+ * default gap of two characters allows a separator like ", " but never a whole word in between, since that needs at
+ * least three. Tokens too short to have been indexed are dropped from the phrase, and the gap allowed where they were
+ * is widened by their length. A proximity query matches when one occurrence of every term starts within
+ * {@code maxDistance} characters of the others.
+ * <p>
+ * Both checks merge the sorted location arrays of the terms in a single pass. A query left without terms, such as a
+ * phrase of punctuation or of tokens too short to index, matches nothing.
+ */
+public class PhraseQueryEvaluator {
+    public static final int    DEFAULT_MAX_GAP = 2;
+
+    private final List<String> terms;
+    private final int[]        lengths;
+    private final int[]        maxGaps;
+    private final boolean      phrase;
+    private final int          maxDistance;
+
+    private PhraseQueryEvaluator( List<String> terms, int[] maxGaps, boolean phrase, int maxDistance ) {
+        Preconditions.checkArgument( maxDistance >= 0, "Distance cannot be negative." );
+        this.terms = ImmutableList.copyOf( terms );
+        this.maxGaps = maxGaps;
+        this.phrase = phrase;
+        this.maxDistance = maxDistance;
+        this.lengths = new int[ terms.size() ];
+        for ( int i = 0; i < lengths.length; ++i ) {
+            lengths[ i ] = terms.get( i ).length();
+        }
+    }
+
+    /**
+     * @param tokens Analyzed tokens of the phrase, in order. Tokens may repeat.
+     */
+    public static PhraseQueryEvaluator phrase( List<String> tokens ) {
+        return phrase( tokens, DEFAULT_MAX_GAP );
+    }
+
+    public static PhraseQueryEvaluator phrase( List<String> tokens, int maxGap ) {
+        Preconditions.checkArgument( maxGap >= 0, "Gap cannot be negative." );
+        List<String> terms = Lists.newArrayListWithCapacity( tokens.size() );
+        List<Integer> maxGaps = Lists.newArrayListWithCapacity( tokens.size() );
+        int skipped = 0;
+        for ( String token : tokens ) {
+            if ( token.length() > PaddedMetadataMapper.MINIMUM_TOKEN_LENGTH ) {
+                terms.add( token );
+                maxGaps.add( maxGap + skipped );
+                skipped = 0;
+            } else if ( !terms.isEmpty() ) {
+                // Only tokens between two indexed terms widen a gap.
+                skipped += token.length();
+            }
+        }
+        return new PhraseQueryEvaluator( terms, Ints.toArray( maxGaps ), true, maxGap );
+    }
+
+    /**
+     * @param terms Analyzed terms that must all occur close together, in any order.
+     * @param maxDistance Maximum number of characters between the first and last term occurrence.
+     */
+    public static PhraseQueryEvaluator near( Set<String> terms, int maxDistance ) {
+        return new PhraseQueryEvaluator( ImmutableList.copyOf( terms ), null, false, maxDistance );
+    }
+
+    /**
+     * @return The distinct terms an object must contain to match.
+     */
+    public Set<String> getTerms() {
+        return ImmutableSet.copyOf( terms );
+    }
+
+    /**
+     * @param locations Sorted locations of each term in an object.
+     */
+    public boolean matches( Map<String, int[]> locations ) {
+        if ( terms.isEmpty() ) {
+            return false;
+        }
+        int[][] positions = new int[ terms.size() ][];
+        for ( int i = 0; i < positions.length; ++i ) {
+            positions[ i ] = locations.get( terms.get( i ) );
+            if ( positions[ i ] == null || positions[ i ].length == 0 ) {
+                return false;
+            }
+        }
+        return phrase ? matchesPhrase( positions, lengths, maxGaps ) : withinDistance( positions, maxDistance );
+    }
+
+    /**
+     * @return Keys of the objects in {@code candidates} that match.
+     */
+    public Set<VersionedObjectKey> filter( Map<VersionedObjectKey, Map<String, int[]>> candidates ) {
+        Set<VersionedObjectKey> matches = Sets.newHashSet();
+        for ( Entry<VersionedObjectKey, Map<String, int[]>> candidate : candidates.entrySet() ) {
+            if ( matches( candidate.getValue() ) ) {
+                matches.add( candidate.getKey() );
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Walks the occurrences of the first term in order, advancing a cursor into each following term's locations. Since
+     * phrase starts only increase, no cursor ever moves backwards.
+     *
+     * @param maxGaps Largest number of characters allowed between each term and the one before it.
+     */
+    static boolean matchesPhrase( int[][] positions, int[] lengths, int[] maxGaps ) {
+        int[] cursors = new int[ positions.length ];
+        for ( int start : positions[ 0 ] ) {
+            int end = start + lengths[ 0 ];
+            boolean matched = true;
+            for ( int i = 1; i < positions.length && matched; ++i ) {
+                int[] next = positions[ i ];
+                while ( cursors[ i ] < next.length && next[ cursors[ i ] ] < end ) {
+                    cursors[ i ]++;
+                }
+                if ( cursors[ i ] == next.length ) {
+                    return false;
+                }
+                int location = next[ cursors[ i ] ];
+                if ( location - end > maxGaps[ i ] ) {
+                    matched = false;
+                } else {
+                    end = location + lengths[ i ];
+                }
+            }
+            if ( matched ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the smallest window holding one occurrence of every term, by repeatedly advancing the term whose current
+     * occurrence comes first.
+     */
+    static boolean withinDistance( int[][] positions, int maxDistance ) {
+        int[] cursors = new int[ positions.length ];
+        while ( true ) {
+            int min = 0;
+            int max = Integer.MIN_VALUE;
+            for ( int i = 0; i < positions.length; ++i ) {
+                int location = positions[ i ][ cursors[ i ] ];
+                if ( location < positions[ min ][ cursors[ min ] ] ) {
+                    min = i;
+                }
+                max = Math.max( max, location );
+            }
+            if ( max - positions[ min ][ cursors[ min ] ] <= maxDistance ) {
+                return true;
+            }
+            if ( ++cursors[ min ] == positions[ min ].length ) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return A sorted copy of {@code locations} without padding.
+     */
+    static int[] toSortedLocations( List<Integer> locations ) {
+        int[] sorted = new int[ locations.size() ];
+        int count = 0;
+        for ( Integer location : locations ) {
+            if ( location != null && location >= 0 ) {
+                sorted[ count++ ] = location;
+            }
+        }
+        sorted = Arrays.copyOf( sorted, count );
+        Arrays.sort( sorted );
+        return sorted;
+    }
+}
@@ -0,0 +1,54 @@
+package com.kryptnostic.api.v1.search;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.kryptnostic.v2.indexing.metadata.Metadata;
+import com.kryptnostic.v2.storage.models.VersionedObjectKey;
+
+/**
+ * Gathers the decrypted locations of every term in every matched object, merging the term's location buckets into a
+ * single sorted array for {@link PhraseQueryEvaluator}.
+ */
+class PostingsCollector implements MetadataListener {
+    private final Map<VersionedObjectKey, Map<String, List<Integer>>> postings = Maps.newHashMap();
+
+    @Override
+    public void onMetadata( List<Metadata> metadata ) {
+        synchronized ( postings ) {
+            for ( Metadata metadatum : metadata ) {
+                Map<String, List<Integer>> terms = postings.get( metadatum.getObjectKey() );
+                if ( terms == null ) {
+                    terms = Maps.newHashMap();
+                    postings.put( metadatum.getObjectKey(), terms );
+                }
+                List<Integer> locations = terms.get( metadatum.getTerm() );
+                if ( locations == null ) {
+                    locations = Lists.newArrayList();
+                    terms.put( metadatum.getTerm(), locations );
+                }
+                locations.addAll( metadatum.getLocations() );
+            }
+        }
+    }
+
+    /**
+     * @return Sorted locations, without padding, of each term in each object seen so far.
+     */
+    Map<VersionedObjectKey, Map<String, int[]>> getPostings() {
+        synchronized ( postings ) {
+            Map<VersionedObjectKey, Map<String, int[]>> sorted = Maps.newHashMapWithExpectedSize( postings.size() );
+            for ( Entry<VersionedObjectKey, Map<String, List<Integer>>> object : postings.entrySet() ) {
+                Map<String, int[]> terms = Maps.newHashMapWithExpectedSize( object.getValue().size() );
+                for ( Entry<String, List<Integer>> term : object.getValue().entrySet() ) {
+                    terms.put( term.getKey(), PhraseQueryEvaluator.toSortedLocations( term.getValue() ) );
+                }
+                sorted.put( object.getKey(), terms );
+            }
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.kryptnostic.api.v1.search;
+
+import java.util.Comparator;
+import java.util.Set;
+
+import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.ImmutableSet;
+import com.kryptnostic.v2.storage.models.VersionedObjectKey;
+
+/**
+ * An object matched by a search, scored by the number of times the search terms occur in it.
+ */
+public class RankedSearchResult {
+    /**
+     * Orders results from worst to best: by score, then by object id and version so that every result has a stable
+     * position across pages.
+     */
+    public static final Comparator<RankedSearchResult> BY_RANK = new RankComparator();
+
+    private final VersionedObjectKey                   objectKey;
+    private final int                                  score;
+    private final Set<String>                          terms;
+
+    public RankedSearchResult( VersionedObjectKey objectKey, int score, Set<String> terms ) {
+        this.objectKey = objectKey;
+        this.score = score;
+        this.terms = ImmutableSet.copyOf( terms );
+    }
+
+    public VersionedObjectKey getObjectKey() {
+        return objectKey;
+    }
+
+    /**
+     * @return Total number of occurrences of the matched terms in the object.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return The analyzed search terms that matched the object.
+     */
+    public Set<String> getTerms() {
+        return terms;
+    }
+
+    @Override
+    public String toString() {
+        return "RankedSearchResult [objectKey=" + objectKey + ", score=" + score + ", terms=" + terms + "]";
+    }
+
+    private static final class RankComparator implements Comparator<RankedSearchResult> {
+        @Override
+        public int compare( RankedSearchResult a, RankedSearchResult b ) {
+            return ComparisonChain.start()
+                    .compare( a.score, b.score )
+                    .compare( b.objectKey.getObjectId(), a.objectKey.getObjectId() )
+                    .compare( b.objectKey.getVersion(), a.objectKey.getVersion() )
+                    .result();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.kryptnostic.api.v1.search;
+
+import java.util.List;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.kryptnostic.api.v1.utils.TopK;
+
+/**
+ * Position in the ranked results of a search, as returned with each {@link SearchPage}. Cursors hold the scores of
+ * every matched object, but never more than one page of results is materialized at a time. A page is selected with a
+ * bounded heap over the results ranked after the last one returned, so paging doesn't depend on a full sort.
+ * <p>
+ * Cursors are immutable and can be resumed any number of times.
+ */
+public final class SearchCursor {
+    private final List<RankedSearchResult>     candidates;
+    private final Optional<RankedSearchResult> after;
+    private final int                          pageSize;
+
+    private SearchCursor( List<RankedSearchResult> candidates, Optional<RankedSearchResult> after, int pageSize ) {
+        this.candidates = candidates;
+        this.after = after;
+        this.pageSize = pageSize;
+    }
+
+    static SearchCursor start( List<RankedSearchResult> candidates, int pageSize ) {
+        Preconditions.checkArgument( pageSize > 0, "Page size must be positive." );
+        return new SearchCursor(
+                ImmutableList.copyOf( candidates ),
+                Optional.<RankedSearchResult> absent(),
+                pageSize );
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @return Total number of objects matched by the search.
+     */
+    public int getTotalHits() {
+        return candidates.size();
+    }
+
+    SearchPage fetch() {
+        TopK<RankedSearchResult> page = new TopK<>( pageSize, RankedSearchResult.BY_RANK );
+        int remaining = 0;
+        for ( RankedSearchResult candidate : candidates ) {
+            if ( !after.isPresent() || RankedSearchResult.BY_RANK.compare( candidate, after.get() ) < 0 ) {
+                page.offer( candidate );
+                remaining++;
+            }
+        }
+
+        List<RankedSearchResult> results = page.toSortedList();
+        Optional<SearchCursor> next = Optional.absent();
+        if ( remaining > results.size() ) {
+            next = Optional.of( new SearchCursor(
+                    candidates,
+                    Optional.of( results.get( results.size() - 1 ) ),
+                    pageSize ) );
+        }
+        return new SearchPage( results, next );
+    }
+}
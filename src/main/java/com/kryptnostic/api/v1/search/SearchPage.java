@@ -0,0 +1,34 @@
+package com.kryptnostic.api.v1.search;
+
+import java.util.List;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * One page of ranked search results, best first.
+ */
+public class SearchPage {
+    private final List<RankedSearchResult> results;
+    private final Optional<SearchCursor>   next;
+
+    public SearchPage( List<RankedSearchResult> results, Optional<SearchCursor> next ) {
+        this.results = ImmutableList.copyOf( results );
+        this.next = next;
+    }
+
+    public List<RankedSearchResult> getResults() {
+        return results;
+    }
+
+    /**
+     * @return Cursor for the following page, absent if this is the last one.
+     */
+    public Optional<SearchCursor> getNext() {
+        return next;
+    }
+
+    public boolean hasNext() {
+        return next.isPresent();
+    }
+}
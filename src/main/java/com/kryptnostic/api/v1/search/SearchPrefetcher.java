@@ -0,0 +1,77 @@
+package com.kryptnostic.api.v1.search;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.kryptnostic.api.v1.metrics.KryptnosticMetrics;
+import com.kryptnostic.api.v1.storage.StorageClient;
+import com.kryptnostic.api.v1.utils.KryptnosticExecutors;
+
+/**
+ * Loads and decrypts the top hits of a search in the background, so that opening one of them is served from the
+ * storage client's object cache. Starting a new prefetch cancels the loads of the previous one that haven't started
+ * yet; loads already running are left to finish, since their objects still end up cached.
+ */
+public class SearchPrefetcher {
+    private static final Logger             logger     = LoggerFactory.getLogger( SearchPrefetcher.class );
+    public static final String              PREFETCHED = "search.prefetched";
+
+    private final StorageClient             storage;
+    private final int                       limit;
+    private final List<ListenableFuture<?>> pending    = Lists.newArrayList();
+
+    /**
+     * @param storage Storage client whose object cache the hits are loaded into. It must have been created with an
+     *            {@link com.kryptnostic.api.v1.storage.ObjectCache} for prefetching to have any effect.
+     * @param limit Number of hits prefetched per search.
+     */
+    public SearchPrefetcher( StorageClient storage, int limit ) {
+        Preconditions.checkArgument( limit > 0, "Prefetch limit must be positive." );
+        this.storage = Preconditions.checkNotNull( storage, "Storage client cannot be null." );
+        this.limit = limit;
+    }
+
+    /**
+     * Cancels the previous prefetch and starts loading the first {@code limit} objects of {@code objectIds}.
+     */
+    public synchronized void prefetch( Iterable<UUID> objectIds ) {
+        cancel();
+        for ( final UUID objectId : Iterables.limit( objectIds, limit ) ) {
+            pending.add( ExecutorHolder.EXECUTOR.submit( new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        storage.getObject( objectId );
+                        KryptnosticMetrics.getRegistry().incrementCounter( PREFETCHED );
+                    } catch ( Exception e ) {
+                        logger.debug( "Unable to prefetch object {}.", objectId, e );
+                    }
+                }
+            } ) );
+        }
+    }
+
+    /**
+     * Cancels every load of the current prefetch that hasn't started yet.
+     */
+    public synchronized void cancel() {
+        for ( ListenableFuture<?> load : pending ) {
+            load.cancel( false );
+        }
+        pending.clear();
+    }
+
+    private static final class ExecutorHolder {
+        private static final ListeningExecutorService EXECUTOR = KryptnosticExecutors.newFixedThreadPool(
+                                                                       "search-prefetch",
+                                                                       4 );
+    }
+}
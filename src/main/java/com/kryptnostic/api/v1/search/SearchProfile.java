@@ -0,0 +1,165 @@
+package com.kryptnostic.api.v1.search;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.base.Stopwatch;
+
+/**
+ * Where the time of a single search went. Phases that run on worker threads, such as token preparation and
+ * decryption, are summed across threads and can add up to more than the wall clock time of the search.
+ * <p>
+ * Profiles only hold counts and timings, never search terms, so they are safe to log.
+ */
+public class SearchProfile {
+    public enum Phase {
+        /**
+         * Analyzing search terms into tokens.
+         */
+        ANALYSIS( "analysis" ),
+        /**
+         * Computing the HMAC of uncached search tokens.
+         */
+        HMAC( "hmac" ),
+        /**
+         * Preparing the FHE encrypted search tokens of uncached terms.
+         */
+        FHE( "fhe" ),
+        /**
+         * Round trip of the term query to the search service.
+         */
+        SERVER( "server" ),
+        /**
+         * Loading the crypto services of hits.
+         */
+        KEY_LOADING( "key-loading" ),
+        /**
+         * Downloading the encrypted metadata of hits.
+         */
+        FETCH( "fetch" ),
+        /**
+         * Decrypting and reading the metadata of hits.
+         */
+        DECRYPTION( "decryption" ),
+        /**
+         * Client-side ranking and phrase or proximity filtering.
+         */
+        RANKING( "ranking" );
+
+        private final String name;
+
+        private Phase( String name ) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final String          type;
+    private final Stopwatch       watch = Stopwatch.createStarted();
+    private final AtomicLongArray nanos = new AtomicLongArray( Phase.values().length );
+    private volatile int          termCount;
+    private volatile int          hitCount;
+    private volatile int          resultCount;
+    private volatile boolean      cached;
+    private volatile long         totalNanos;
+
+    /**
+     * @param type Kind of search, such as "terms" or "phrase".
+     */
+    public SearchProfile( String type ) {
+        this.type = type;
+    }
+
+    public void record( Phase phase, long elapsedNanos ) {
+        nanos.addAndGet( phase.ordinal(), elapsedNanos );
+    }
+
+    public void record( Phase phase, Stopwatch watch ) {
+        record( phase, watch.elapsed( TimeUnit.NANOSECONDS ) );
+    }
+
+    void setTermCount( int termCount ) {
+        this.termCount = termCount;
+    }
+
+    void setHitCount( int hitCount ) {
+        this.hitCount = hitCount;
+    }
+
+    void setCached( boolean cached ) {
+        this.cached = cached;
+    }
+
+    void finish( int resultCount ) {
+        this.resultCount = resultCount;
+        this.totalNanos = watch.elapsed( TimeUnit.NANOSECONDS );
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getNanos( Phase phase ) {
+        return nanos.get( phase.ordinal() );
+    }
+
+    public Map<Phase, Long> getPhaseNanos() {
+        Map<Phase, Long> phases = new EnumMap<>( Phase.class );
+        for ( Phase phase : Phase.values() ) {
+            phases.put( phase, getNanos( phase ) );
+        }
+        return phases;
+    }
+
+    /**
+     * @return Wall clock time of the whole search.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return Number of distinct analyzed terms searched for.
+     */
+    public int getTermCount() {
+        return termCount;
+    }
+
+    /**
+     * @return Number of hits returned by the search service.
+     */
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * @return True if the results were served from the {@link SearchResultCache}.
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder( "SearchProfile [type=" ).append( type )
+                .append( ", terms=" ).append( termCount )
+                .append( ", hits=" ).append( hitCount )
+                .append( ", results=" ).append( resultCount )
+                .append( ", cached=" ).append( cached )
+                .append( ", totalMs=" ).append( TimeUnit.NANOSECONDS.toMillis( totalNanos ) );
+        for ( Phase phase : Phase.values() ) {
+            builder.append( ", " ).append( phase.getName() ).append( "Ms=" )
+                    .append( TimeUnit.NANOSECONDS.toMillis( getNanos( phase ) ) );
+        }
+        return builder.append( "]" ).toString();
+    }
+}
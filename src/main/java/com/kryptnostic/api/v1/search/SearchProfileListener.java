@@ -0,0 +1,9 @@
+package com.kryptnostic.api.v1.search;
+
+/**
+ * Notified with the {@link SearchProfile} of every completed search. Listeners are called on the thread completing the
+ * search and should return quickly.
+ */
+public interface SearchProfileListener {
+    void onSearchCompleted( SearchProfile profile );
+}
@@ -0,0 +1,179 @@
+package com.kryptnostic.api.v1.search;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Sets;
+import com.kryptnostic.api.v1.metrics.KryptnosticMetrics;
+import com.kryptnostic.api.v1.storage.ObjectChangeListener;
+import com.kryptnostic.v2.search.SearchResult;
+import com.kryptnostic.v2.storage.models.VersionedObjectKey;
+
+/**
+ * Per connection cache of decrypted search results, keyed by the sorted set of analyzed query terms. Entries are
+ * invalidated by this client's own writes: storing an object drops every entry for a query sharing one of its terms
+ * or already returning it, deleting an object drops the entries returning it, and receiving shares drops everything
+ * since the terms of shared objects aren't known. Writes by other clients are only picked up once entries expire.
+ * <p>
+ * Searches register their terms with {@link #begin(Set)} while they run. A write that could change the results of a
+ * cached or running search bumps a generation counter, and results are only cached if the generation hasn't moved
+ * since the search producing them began. A search racing a relevant write therefore never caches stale results, while
+ * writes that can't affect any search leave the generation alone.
+ */
+public class SearchResultCache implements ObjectChangeListener {
+    private static final Logger                     logger        = LoggerFactory.getLogger( SearchResultCache.class );
+    public static final String                      HITS          = "search.result-cache.hits";
+    public static final String                      MISSES        = "search.result-cache.misses";
+    public static final String                      INVALIDATIONS = "search.result-cache.invalidations";
+
+    private final Cache<Set<String>, CachedResults> cache;
+    private final Multiset<Set<String>>             running       = HashMultiset.create();
+    private long                                    generation;
+
+    public SearchResultCache( long maximumSize, long expireAfterWriteSeconds ) {
+        this.cache = CacheBuilder.newBuilder().maximumSize( maximumSize )
+                .expireAfterWrite( expireAfterWriteSeconds, TimeUnit.SECONDS ).recordStats().build();
+    }
+
+    /**
+     * @return The cache key for a query with {@code analyzedTerms}, independent of term order and repetition.
+     */
+    public static Set<String> normalize( Iterable<String> analyzedTerms ) {
+        return ImmutableSortedSet.copyOf( analyzedTerms );
+    }
+
+    /**
+     * Registers a search for the normalized query {@code terms}, which must be followed by {@link #end(Set)} whether or
+     * not the search succeeds.
+     *
+     * @return The current generation, to be passed to {@link #put(Set, Set, Set, long)} once the search completes.
+     */
+    public synchronized long begin( Set<String> terms ) {
+        running.add( terms );
+        return generation;
+    }
+
+    public synchronized void end( Set<String> terms ) {
+        running.remove( terms );
+    }
+
+    /**
+     * @return The number of times results that may have been cached, or were being searched for, were invalidated.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return The cached results for the normalized query {@code terms}, or null if there aren't any.
+     */
+    public Set<SearchResult> getIfPresent( Set<String> terms ) {
+        CachedResults cached = cache.getIfPresent( terms );
+        if ( cached == null ) {
+            KryptnosticMetrics.getRegistry().incrementCounter( MISSES );
+            return null;
+        }
+        KryptnosticMetrics.getRegistry().incrementCounter( HITS );
+        return cached.results;
+    }
+
+    /**
+     * Caches {@code results} unless an invalidation happened after {@code generation} was read.
+     *
+     * @param objectIds Ids of the objects in {@code results}.
+     */
+    public synchronized void put( Set<String> terms, Set<SearchResult> results, Set<UUID> objectIds, long generation ) {
+        if ( generation != this.generation ) {
+            logger.debug( "Not caching results for {}, invalidated while searching.", terms );
+            return;
+        }
+        cache.put( terms, new CachedResults( results, objectIds ) );
+    }
+
+    @Override
+    public synchronized void onObjectStored( VersionedObjectKey objectKey, Set<String> terms ) {
+        boolean affected = false;
+        for ( Map.Entry<Set<String>, CachedResults> entry : cache.asMap().entrySet() ) {
+            if ( entry.getValue().objectIds.contains( objectKey.getObjectId() ) || overlaps( entry.getKey(), terms ) ) {
+                invalidate( entry.getKey() );
+                affected = true;
+            }
+        }
+        for ( Set<String> query : running.elementSet() ) {
+            affected = affected || overlaps( query, terms );
+        }
+        if ( affected ) {
+            generation++;
+        }
+    }
+
+    @Override
+    public synchronized void onObjectDeleted( UUID objectId ) {
+        // The results of running searches aren't known yet, so any of them may include the deleted object.
+        boolean affected = !running.isEmpty();
+        for ( Map.Entry<Set<String>, CachedResults> entry : cache.asMap().entrySet() ) {
+            if ( entry.getValue().objectIds.contains( objectId ) ) {
+                invalidate( entry.getKey() );
+                affected = true;
+            }
+        }
+        if ( affected ) {
+            generation++;
+        }
+    }
+
+    @Override
+    public void onSharesReceived( Set<VersionedObjectKey> objectKeys ) {
+        if ( !objectKeys.isEmpty() ) {
+            invalidateAll();
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return True if the query {@code terms} share a term with {@code objectTerms}. Queries are small, so they are
+     *         the ones iterated.
+     */
+    private static boolean overlaps( Set<String> terms, Set<String> objectTerms ) {
+        return !Sets.intersection( terms, objectTerms ).isEmpty();
+    }
+
+    private void invalidate( Set<String> terms ) {
+        cache.invalidate( terms );
+        KryptnosticMetrics.getRegistry().incrementCounter( INVALIDATIONS );
+    }
+
+    private static final class CachedResults {
+        private final Set<SearchResult> results;
+        private final Set<UUID>         objectIds;
+
+        private CachedResults( Set<SearchResult> results, Set<UUID> objectIds ) {
+            this.results = ImmutableSet.copyOf( results );
+            this.objectIds = ImmutableSet.copyOf( objectIds );
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.kryptnostic.api.v1.search;
+
+import java.util.Set;
+
+import com.kryptnostic.v2.search.SearchResult;
+
+/**
+ * Receives search results as they are decrypted, before the whole query has completed.
+ */
+public interface SearchResultListener {
+    /**
+     * Called once per batch of resolved hits, possibly concurrently from worker threads.
+     */
+    void onResults( Set<SearchResult> results );
+}
@@ -0,0 +1,249 @@
+package com.kryptnostic.api.v1.search;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.kryptnostic.api.v1.KryptnosticConnection;
+import com.kryptnostic.api.v1.metrics.KryptnosticMetrics;
+import com.kryptnostic.api.v1.search.SearchProfile.Phase;
+import com.kryptnostic.api.v1.utils.KryptnosticExecutors;
+import com.kryptnostic.kodex.v1.crypto.ciphers.BlockCiphertext;
+import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
+import com.kryptnostic.kodex.v1.exceptions.types.SecurityConfigurationException;
+import com.kryptnostic.kodex.v1.serialization.jackson.KodexObjectMapperFactory;
+import com.kryptnostic.v2.crypto.CryptoServiceLoader;
+import com.kryptnostic.v2.indexing.metadata.Metadata;
+import com.kryptnostic.v2.search.SearchResult;
+import com.kryptnostic.v2.storage.api.ObjectStorageApi;
+import com.kryptnostic.v2.storage.models.VersionedObjectKey;
+
+/**
+ * Resolves search hits, the keys of the encrypted {@link Metadata} objects matched by the server, into search results.
+ * Hits are processed in batches: each batch loads its crypto services with a single
+ * {@link CryptoServiceLoader#getAll(Set)}, fetches its ciphertexts concurrently on an I/O pool and decrypts them on a
+ * compute pool. Batches are reported to a {@link SearchResultListener}, or as raw metadata to a {@link MetadataListener},
+ * as soon as they complete, so callers see the first results without waiting for the slowest hit.
+ */
+public class SearchResultPipeline {
+    private static final Logger       logger     = LoggerFactory.getLogger( SearchResultPipeline.class );
+    public static final int           BATCH_SIZE = 32;
+
+    private final ObjectStorageApi    objectApi;
+    private final CryptoServiceLoader loader;
+    private final ObjectMapper        mapper     = KodexObjectMapperFactory.getObjectMapper();
+
+    public SearchResultPipeline( KryptnosticConnection connection ) {
+        this.objectApi = connection.getObjectStorageApi();
+        this.loader = Preconditions.checkNotNull(
+                connection.getCryptoServiceLoader(),
+                "CryptoServiceLoader from KryptnosticConnection cannot be null." );
+    }
+
+    /**
+     * @return A future for every result, which completes once all batches have been reported to {@code listener}.
+     *         Hits that can't be resolved are logged and left out.
+     */
+    public ListenableFuture<Set<SearchResult>> resolve(
+            Set<VersionedObjectKey> hits,
+            final SearchResultListener listener ) {
+        return resolve( hits, listener, new SearchProfile( "resolve" ) );
+    }
+
+    /**
+     * Like {@link #resolve(Set, SearchResultListener)}, recording the time spent in each phase to {@code profile}.
+     */
+    public ListenableFuture<Set<SearchResult>> resolve(
+            Set<VersionedObjectKey> hits,
+            final SearchResultListener listener,
+            SearchProfile profile ) {
+        final Set<SearchResult> results = Sets.newConcurrentHashSet();
+        ListenableFuture<Integer> resolved = resolveMetadata( hits, new MetadataListener() {
+            @Override
+            public void onMetadata( List<Metadata> metadata ) {
+                Set<SearchResult> batch = Sets.newHashSetWithExpectedSize( metadata.size() );
+                for ( Metadata metadatum : metadata ) {
+                    batch.add( toSearchResult( metadatum ) );
+                }
+                results.addAll( batch );
+                listener.onResults( batch );
+            }
+        }, profile );
+        return Futures.transform( resolved, new AsyncFunction<Integer, Set<SearchResult>>() {
+            @Override
+            public ListenableFuture<Set<SearchResult>> apply( Integer count ) {
+                return Futures.immediateFuture( results );
+            }
+        } );
+    }
+
+    /**
+     * Decrypts the metadata behind {@code hits}, reporting each non-empty batch to {@code listener}.
+     *
+     * @return A future for the number of hits resolved, which completes once every batch has been reported.
+     */
+    public ListenableFuture<Integer> resolveMetadata( Set<VersionedObjectKey> hits, MetadataListener listener ) {
+        return resolveMetadata( hits, listener, new SearchProfile( "resolve" ) );
+    }
+
+    /**
+     * Like {@link #resolveMetadata(Set, MetadataListener)}, recording the time spent in each phase to {@code profile}.
+     */
+    public ListenableFuture<Integer> resolveMetadata(
+            Set<VersionedObjectKey> hits,
+            final MetadataListener listener,
+            SearchProfile profile ) {
+        List<ListenableFuture<List<Metadata>>> batches = Lists.newArrayList();
+        for ( List<VersionedObjectKey> batch : Iterables.partition( hits, BATCH_SIZE ) ) {
+            ListenableFuture<List<Metadata>> metadata = resolveBatch( ImmutableSet.copyOf( batch ), profile );
+            batches.add( Futures.transform( metadata, new AsyncFunction<List<Metadata>, List<Metadata>>() {
+                @Override
+                public ListenableFuture<List<Metadata>> apply( List<Metadata> metadata ) {
+                    if ( !metadata.isEmpty() ) {
+                        listener.onMetadata( metadata );
+                    }
+                    return Futures.immediateFuture( metadata );
+                }
+            } ) );
+        }
+        return Futures.transform( Futures.successfulAsList( batches ),
+                new AsyncFunction<List<List<Metadata>>, Integer>() {
+                    @Override
+                    public ListenableFuture<Integer> apply( List<List<Metadata>> batches ) {
+                        int resolved = 0;
+                        for ( List<Metadata> batch : batches ) {
+                            if ( batch == null ) {
+                                logger.error( "Unable to resolve a batch of search hits." );
+                            } else {
+                                resolved += batch.size();
+                            }
+                        }
+                        return Futures.immediateFuture( resolved );
+                    }
+                } );
+    }
+
+    private ListenableFuture<List<Metadata>> resolveBatch(
+            final Set<VersionedObjectKey> batch,
+            final SearchProfile profile ) {
+        final ListenableFuture<Map<VersionedObjectKey, CryptoService>> services = ExecutorHolder.FETCH
+                .submit( new Callable<Map<VersionedObjectKey, CryptoService>>() {
+                    @Override
+                    public Map<VersionedObjectKey, CryptoService> call() throws ExecutionException {
+                        Stopwatch watch = Stopwatch.createStarted();
+                        try {
+                            return loader.getAll( batch );
+                        } finally {
+                            profile.record( Phase.KEY_LOADING, watch );
+                        }
+                    }
+                } );
+
+        List<ListenableFuture<Optional<Metadata>>> metadata = Lists.newArrayListWithCapacity( batch.size() );
+        for ( final VersionedObjectKey key : batch ) {
+            final ListenableFuture<BlockCiphertext> ciphertext = ExecutorHolder.FETCH
+                    .submit( new Callable<BlockCiphertext>() {
+                        @Override
+                        public BlockCiphertext call() {
+                            Stopwatch watch = Stopwatch.createStarted();
+                            try {
+                                return fetchCiphertext( key );
+                            } finally {
+                                profile.record( Phase.FETCH, watch );
+                            }
+                        }
+                    } );
+            metadata.add( Futures.transform(
+                    Futures.<Object> allAsList( services, ciphertext ),
+                    new AsyncFunction<List<Object>, Optional<Metadata>>() {
+                        @Override
+                        public ListenableFuture<Optional<Metadata>> apply( List<Object> ready )
+                                throws SecurityConfigurationException {
+                            return Futures.immediateFuture( decrypt(
+                                    key,
+                                    Futures.getUnchecked( services ).get( key ),
+                                    Futures.getUnchecked( ciphertext ),
+                                    profile ) );
+                        }
+                    },
+                    ExecutorHolder.DECRYPT ) );
+        }
+
+        return Futures.transform( Futures.successfulAsList( metadata ),
+                new AsyncFunction<List<Optional<Metadata>>, List<Metadata>>() {
+                    @Override
+                    public ListenableFuture<List<Metadata>> apply( List<Optional<Metadata>> metadata ) {
+                        List<Metadata> resolved = Lists.newArrayListWithCapacity( metadata.size() );
+                        for ( Optional<Metadata> metadatum : metadata ) {
+                            if ( metadatum != null && metadatum.isPresent() ) {
+                                resolved.add( metadatum.get() );
+                            }
+                        }
+                        return Futures.<List<Metadata>> immediateFuture( resolved );
+                    }
+                } );
+    }
+
+    private BlockCiphertext fetchCiphertext( VersionedObjectKey key ) {
+        return new BlockCiphertext(
+                objectApi.getObjectIV( key.getObjectId(), key.getVersion() ),
+                objectApi.getObjectSalt( key.getObjectId(), key.getVersion() ),
+                objectApi.getObjectContent( key.getObjectId(), key.getVersion() ),
+                Optional.<byte[]> absent(),
+                Optional.<byte[]> of( objectApi.getObjectTag( key.getObjectId(), key.getVersion() ) ) );
+    }
+
+    private Optional<Metadata> decrypt(
+            VersionedObjectKey key,
+            CryptoService service,
+            BlockCiphertext ciphertext,
+            SearchProfile profile ) throws SecurityConfigurationException {
+        if ( service == null ) {
+            logger.warn( "No crypto service available for search hit {}, skipping it.", key );
+            return Optional.absent();
+        }
+        Stopwatch watch = Stopwatch.createStarted();
+        byte[] bytes = service.decryptBytes( ciphertext );
+        KryptnosticMetrics.recordPhase( KryptnosticMetrics.DECRYPTION, watch );
+        try {
+            return Optional.of( mapper.readValue( bytes, Metadata.class ) );
+        } catch ( IOException e ) {
+            logger.error( "Unable to read metadata for search hit {}.", key, e );
+            return Optional.absent();
+        } finally {
+            profile.record( Phase.DECRYPTION, watch );
+        }
+    }
+
+    static SearchResult toSearchResult( Metadata metadatum ) {
+        return new SearchResult( metadatum.getObjectKey(), metadatum.getTerm(), metadatum.getLocations() );
+    }
+
+    private static final class ExecutorHolder {
+        private static final ListeningExecutorService FETCH   = KryptnosticExecutors.newFixedThreadPool(
+                                                                      "search-fetch",
+                                                                      8 );
+        private static final ListeningExecutorService DECRYPT = KryptnosticExecutors.newFixedThreadPool(
+                                                                      "search-decrypt",
+                                                                      Runtime.getRuntime()
+                                                                              .availableProcessors() );
+    }
+}
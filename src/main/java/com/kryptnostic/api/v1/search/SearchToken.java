@@ -0,0 +1,34 @@
+package com.kryptnostic.api.v1.search;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The two halves of a term query for a single analyzed term: the HMAC of the term, which the server uses to find the
+ * term's index, and the FHE encrypted search token.
+ */
+public class SearchToken {
+    private static final String TOKEN_FIELD                  = "token";
+    private static final String ENCRYPTED_SEARCH_TOKEN_FIELD = "encryptedSearchToken";
+
+    private final byte[]        token;
+    private final byte[]        encryptedSearchToken;
+
+    @JsonCreator
+    public SearchToken(
+            @JsonProperty( TOKEN_FIELD ) byte[] token,
+            @JsonProperty( ENCRYPTED_SEARCH_TOKEN_FIELD ) byte[] encryptedSearchToken ) {
+        this.token = token;
+        this.encryptedSearchToken = encryptedSearchToken;
+    }
+
+    @JsonProperty( TOKEN_FIELD )
+    public byte[] getToken() {
+        return token;
+    }
+
+    @JsonProperty( ENCRYPTED_SEARCH_TOKEN_FIELD )
+    public byte[] getEncryptedSearchToken() {
+        return encryptedSearchToken;
+    }
+}
@@ -0,0 +1,186 @@
+package com.kryptnostic.api.v1.search;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.kryptnostic.api.v1.KryptnosticCryptoManager;
+import com.kryptnostic.api.v1.metrics.KryptnosticMetrics;
+import com.kryptnostic.api.v1.utils.KryptnosticExecutors;
+import com.kryptnostic.kodex.v1.crypto.ciphers.BlockCiphertext;
+import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
+import com.kryptnostic.kodex.v1.exceptions.types.SecurityConfigurationException;
+import com.kryptnostic.kodex.v1.serialization.jackson.KodexObjectMapperFactory;
+import com.kryptnostic.kodex.v1.storage.DataStore;
+
+/**
+ * Per connection cache of {@link SearchToken}s keyed by analyzed term, so that repeated queries skip both the HMAC and
+ * the FHE work. The cache can be persisted in the local {@link DataStore}, encrypted with the master crypto service; it
+ * is then loaded when the connection is created and written back in the background as new terms are added.
+ */
+public class SearchTokenCache {
+    private static final Logger              logger             = LoggerFactory.getLogger( SearchTokenCache.class );
+    public static final String               SEARCH_TOKEN_CACHE = "search-token-cache";
+    public static final String               HITS               = "search.token-cache.hits";
+    public static final String               MISSES             = "search.token-cache.misses";
+    public static final String               TOKEN_PREPARATION  = "search-token-preparation";
+
+    /**
+     * Number of new tokens after which a persistent cache is written back.
+     */
+    private static final int                 FLUSH_THRESHOLD    = 256;
+
+    private final Cache<String, SearchToken> cache;
+    private final DataStore                  dataStore;
+    private final CryptoService              crypto;
+    private final boolean                    persistent;
+    private final ObjectMapper               mapper             = KodexObjectMapperFactory.getSmileMapper();
+    private final AtomicInteger              unflushed          = new AtomicInteger();
+
+    /**
+     * @param crypto Used to encrypt the persisted cache. Ignored unless {@code persistent} is true.
+     */
+    public SearchTokenCache( long maximumSize, DataStore dataStore, CryptoService crypto, boolean persistent ) {
+        this.cache = CacheBuilder.newBuilder().maximumSize( maximumSize ).recordStats().build();
+        this.dataStore = dataStore;
+        this.crypto = crypto;
+        this.persistent = persistent;
+        if ( persistent ) {
+            load();
+        }
+    }
+
+    /**
+     * @return The search token for {@code term}, computed with {@code cryptoManager} if it isn't cached.
+     */
+    public SearchToken get( final String term, final KryptnosticCryptoManager cryptoManager ) {
+        return get( term, new Callable<SearchToken>() {
+            @Override
+            public SearchToken call() {
+                return new SearchToken(
+                        cryptoManager.computeSearchToken( term ),
+                        cryptoManager.prepareSearchToken( term ) );
+            }
+        } );
+    }
+
+    /**
+     * @return The cached search token for {@code term}, or null if there isn't one.
+     */
+    public SearchToken getIfPresent( String term ) {
+        SearchToken token = cache.getIfPresent( term );
+        if ( token != null ) {
+            KryptnosticMetrics.getRegistry().incrementCounter( HITS );
+        }
+        return token;
+    }
+
+    /**
+     * @return The search token for {@code term}, computed by {@code preparer} if it isn't cached.
+     */
+    public SearchToken get( String term, final Callable<SearchToken> preparer ) {
+        SearchToken token = getIfPresent( term );
+        if ( token != null ) {
+            return token;
+        }
+        KryptnosticMetrics.getRegistry().incrementCounter( MISSES );
+        try {
+            token = cache.get( term, new Callable<SearchToken>() {
+                @Override
+                public SearchToken call() throws Exception {
+                    Stopwatch watch = Stopwatch.createStarted();
+                    SearchToken prepared = preparer.call();
+                    KryptnosticMetrics.recordPhase( TOKEN_PREPARATION, watch );
+                    return prepared;
+                }
+            } );
+        } catch ( ExecutionException e ) {
+            throw Throwables.propagate( e.getCause() );
+        }
+        if ( persistent && unflushed.incrementAndGet() >= FLUSH_THRESHOLD ) {
+            unflushed.set( 0 );
+            FlushExecutorHolder.EXECUTOR.execute( new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            } );
+        }
+        return token;
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+        if ( persistent ) {
+            try {
+                dataStore.delete( SEARCH_TOKEN_CACHE );
+            } catch ( IOException e ) {
+                logger.debug( "Unable to delete persisted search token cache.", e );
+            }
+        }
+    }
+
+    /**
+     * Writes the cache to the local data store, if it is persistent.
+     */
+    public void flush() {
+        if ( !persistent ) {
+            return;
+        }
+        try {
+            Map<String, SearchToken> tokens = ImmutableMap.copyOf( cache.asMap() );
+            BlockCiphertext ciphertext = crypto.encrypt( mapper.writeValueAsBytes( tokens ) );
+            dataStore.put( SEARCH_TOKEN_CACHE, mapper.writeValueAsBytes( ciphertext ) );
+            logger.debug( "Persisted {} search tokens.", tokens.size() );
+        } catch ( IOException | SecurityConfigurationException e ) {
+            logger.warn( "Unable to persist search token cache.", e );
+        }
+    }
+
+    private void load() {
+        try {
+            byte[] encryptedTokens = dataStore.get( SEARCH_TOKEN_CACHE );
+            if ( encryptedTokens == null ) {
+                return;
+            }
+            BlockCiphertext ciphertext = mapper.readValue( encryptedTokens, BlockCiphertext.class );
+            Map<String, SearchToken> tokens = mapper.readValue( crypto.decryptBytes( ciphertext ), mapper
+                    .getTypeFactory().constructMapType( Map.class, String.class, SearchToken.class ) );
+            cache.putAll( tokens );
+            logger.debug( "Loaded {} persisted search tokens.", tokens.size() );
+        } catch ( IOException | SecurityConfigurationException e ) {
+            logger.warn( "Unable to read persisted search token cache, discarding it.", e );
+            try {
+                dataStore.delete( SEARCH_TOKEN_CACHE );
+            } catch ( IOException ex ) {
+                logger.debug( "Unable to delete persisted search token cache.", ex );
+            }
+        }
+    }
+
+    private static final class FlushExecutorHolder {
+        private static final ListeningExecutorService EXECUTOR = KryptnosticExecutors
+                                                                       .newSingleThreadExecutor( "search-token-flush" );
+    }
+}
@@ -0,0 +1,43 @@
+package com.kryptnostic.api.v1.search;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Logs the phase breakdown of searches slower than a threshold. Only counts and timings are logged, never search
+ * terms.
+ */
+public class SlowQueryLog implements SearchProfileListener {
+    private static final Logger logger                   = LoggerFactory.getLogger( SlowQueryLog.class );
+    public static final long    DEFAULT_THRESHOLD_MILLIS = 1000;
+
+    private volatile long       thresholdMillis;
+
+    public SlowQueryLog() {
+        this( DEFAULT_THRESHOLD_MILLIS );
+    }
+
+    public SlowQueryLog( long thresholdMillis ) {
+        setThresholdMillis( thresholdMillis );
+    }
+
+    public long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    public void setThresholdMillis( long thresholdMillis ) {
+        Preconditions.checkArgument( thresholdMillis >= 0, "Slow query threshold cannot be negative." );
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    @Override
+    public void onSearchCompleted( SearchProfile profile ) {
+        if ( TimeUnit.NANOSECONDS.toMillis( profile.getTotalNanos() ) >= thresholdMillis ) {
+            logger.warn( "Slow search: {}", profile );
+        }
+    }
+}
@@ -7,7 +7,11 @@ import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -18,14 +22,34 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.kryptnostic.api.v1.KryptnosticConnection;
 import com.kryptnostic.api.v1.KryptnosticCryptoManager;
 import com.kryptnostic.api.v1.client.DefaultKryptnosticClient;
 import com.kryptnostic.api.v1.client.DefaultKryptnosticCryptoManager;
 import com.kryptnostic.api.v1.client.KryptnosticRestAdapter;
+import com.kryptnostic.api.v1.client.LoadBalancingClient;
+import com.kryptnostic.api.v1.metrics.KryptnosticMetrics;
+import com.kryptnostic.api.v1.search.SearchResultCache;
+import com.kryptnostic.api.v1.search.SearchTokenCache;
+import com.kryptnostic.api.v1.security.ConnectionOptions.EngineLoading;
+import com.kryptnostic.api.v1.security.ConnectionOptions.WireFormat;
 import com.kryptnostic.api.v1.security.loaders.rsa.FreshRsaKeyLoader;
 import com.kryptnostic.api.v1.security.loaders.rsa.LocalRsaKeyLoader;
 import com.kryptnostic.api.v1.security.loaders.rsa.NetworkRsaKeyLoader;
+import com.kryptnostic.api.v1.security.loaders.rsa.RsaKeyLoader;
+import com.kryptnostic.api.v1.utils.KryptnosticExecutors;
 import com.kryptnostic.directory.v1.http.UserDirectoryApi;
 import com.kryptnostic.kodex.v1.authentication.CredentialFactory;
 import com.kryptnostic.kodex.v1.client.KryptnosticClient;
@@ -34,6 +58,8 @@ import com.kryptnostic.kodex.v1.crypto.ciphers.BlockCiphertext;
 import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
 import com.kryptnostic.kodex.v1.crypto.ciphers.Cypher;
 import com.kryptnostic.kodex.v1.crypto.ciphers.PasswordCryptoService;
+import com.kryptnostic.kodex.v1.crypto.ciphers.RsaCompressingCryptoService;
+import com.kryptnostic.kodex.v1.crypto.keys.Keys;
 import com.kryptnostic.kodex.v1.exceptions.types.IrisException;
 import com.kryptnostic.kodex.v1.exceptions.types.KodexException;
 import com.kryptnostic.kodex.v1.exceptions.types.ResourceNotFoundException;
@@ -56,30 +82,44 @@ import retrofit.RestAdapter;
 import retrofit.client.Client;
 
 public class CachingKryptnosticConnection implements KryptnosticConnection {
-    private static final Logger                       logger     = LoggerFactory
-                                                                         .getLogger(
-                                                                                 CachingKryptnosticConnection.class );
-    protected static final DeflatingJacksonMarshaller marshaller = new DeflatingJacksonMarshaller();
-    private transient final PasswordCryptoService     cryptoService;
-    private final UUID                                userKey;
-    private final String                              userCredential;
-    private final String                              url;
-    private final UserDirectoryApi                    userDirectoryApi;
-    private final ObjectStorageApi                    objectStorageApi;
-    private final ObjectListingApi                    objectListingApi;
-    private final KeyStorageApi                       keyStorageApi;
-    private final SearchApi                           searchApi;
-    private final SharingApi                          sharingApi;
-    private final TypesApi                            typesApi;
-    private final DataStore                           dataStore;
-    private final PublicKey                           rsaPublicKey;
-    private final PrivateKey                          rsaPrivateKey;
-    private final CryptoServiceLoader                 loader;
-    private final KryptnosticCryptoManager            cryptoManager;
-    boolean                                           doFresh    = false;
-    private final KryptnosticEngine                   engine;
-    private final byte[]                              clientHashFunction;
-    private final CryptoService                       masterCryptoService;
+    private static final Logger                                 logger            = LoggerFactory
+                                                                                          .getLogger(
+                                                                                                  CachingKryptnosticConnection.class );
+    protected static final DeflatingJacksonMarshaller           marshaller        = new DeflatingJacksonMarshaller();
+    private static final int                                    BOOTSTRAP_THREADS = 3;
+    private transient final PasswordCryptoService               cryptoService;
+    private final UUID                                          userKey;
+    private final String                                        userCredential;
+    private final String                                        url;
+    private final UserDirectoryApi                              userDirectoryApi;
+    private final ObjectStorageApi                              objectStorageApi;
+    private final ObjectListingApi                              objectListingApi;
+    private final KeyStorageApi                                 keyStorageApi;
+    private final SearchApi                                     searchApi;
+    private final SharingApi                                    sharingApi;
+    private final TypesApi                                      typesApi;
+    private final DataStore                                     dataStore;
+    private final PublicKey                                     rsaPublicKey;
+    private final PrivateKey                                    rsaPrivateKey;
+    private final CryptoServiceLoader                           loader;
+    private final KryptnosticCryptoManager                      cryptoManager;
+    boolean                                                     doFresh           = false;
+    private final ListenableFutureTask<KryptnosticEngineHolder> engineHolder;
+    private final CryptoService                                 masterCryptoService;
+    private final Map<String, Long>                             bootstrapTimings  = Maps.newConcurrentMap();
+    private final SessionSnapshotStore                          snapshots;
+    private final SearchTokenCache                              searchTokenCache;
+    private final SearchResultCache                             searchResultCache;
+    private final Supplier<KryptnosticEnginePool>               enginePool;
+
+    /**
+     * Creates a connection that uses the JVM wide shared HTTP client, see
+     * {@link KryptnosticRestAdapter#getSharedClient()}.
+     */
+    public CachingKryptnosticConnection( String url, UUID userKey, String password, DataStore dataStore )
+            throws IrisException {
+        this( url, userKey, password, dataStore, null );
+    }
 
     public CachingKryptnosticConnection( String url, UUID userKey, String password, DataStore dataStore, Client client )
             throws IrisException {
@@ -93,14 +133,43 @@ public class CachingKryptnosticConnection implements KryptnosticConnection {
             DataStore dataStore,
             Client client,
             KeyPair keyPair ) throws IrisException {
+        this( url, userKey, password, dataStore, client, keyPair, ConnectionOptions.defaults() );
+    }
+
+    public CachingKryptnosticConnection(
+            String url,
+            UUID userKey,
+            String password,
+            DataStore dataStore,
+            Client client,
+            KeyPair keyPair,
+            ConnectionOptions options ) throws IrisException {
+        Stopwatch total = Stopwatch.createStarted();
         cryptoService = new PasswordCryptoService( password );
+        if ( !options.getEndpoints().isEmpty() ) {
+            // A host listed twice would get two nodes, doubling its share of requests and splitting its failures.
+            List<String> endpoints = ImmutableSet.<String> builder().add( url ).addAll( options.getEndpoints() )
+                    .build().asList();
+            client = new LoadBalancingClient(
+                    url,
+                    endpoints,
+                    options.getBalancing(),
+                    client == null ? KryptnosticRestAdapter.getSharedTransport() : client );
+        }
+        Stopwatch watch = Stopwatch.createStarted();
         String credential = bootstrapCredential( userKey, url, password, client );
-
-        RestAdapter v2Adapter = KryptnosticRestAdapter.createWithDefaultJacksonConverter(
-                url,
-                userKey,
-                credential,
-                client );
+        recordPhase( "credential", watch );
+
+        RestAdapter v2Adapter;
+        if ( options.getWireFormat() == WireFormat.SMILE ) {
+            v2Adapter = KryptnosticRestAdapter.createWithSmileConverter( url, userKey, credential, client );
+        } else {
+            v2Adapter = KryptnosticRestAdapter.createWithDefaultJacksonConverter(
+                    url,
+                    userKey,
+                    credential,
+                    client );
+        }
         this.userDirectoryApi = v2Adapter.create( UserDirectoryApi.class );
         this.keyStorageApi = v2Adapter.create( KeyStorageApi.class );
         this.objectStorageApi = v2Adapter.create( ObjectStorageApi.class );
@@ -112,24 +181,141 @@ public class CachingKryptnosticConnection implements KryptnosticConnection {
         this.userKey = userKey;
         this.url = url;
         this.dataStore = dataStore;
+        this.snapshots = new SessionSnapshotStore( dataStore, cryptoService );
 
-        /**
-         * Load basic RSA keys into connection or generate them
+        /*
+         * A session snapshot replaces the rsa, master and engine phases below with a single local read and a check of
+         * the restored keys against the server.
          */
-        Stopwatch watch = Stopwatch.createStarted();
-        if ( keyPair == null ) {
-            keyPair = loadRsaKeys( cryptoService, userKey, dataStore, keyStorageApi );
+        final Optional<RestoredSession> restored;
+        if ( options.isSessionSnapshot() && keyPair == null ) {
+            watch = Stopwatch.createStarted();
+            restored = restoreSession();
+            recordPhase( "snapshot", watch );
+        } else {
+            restored = Optional.absent();
+        }
+        final Optional<RestoredSession> session;
+
+        /*
+         * Everything below needs the credential. The remaining phases only depend on each other as follows, so they
+         * are run concurrently:
+         *
+         * rsa keys ---------+
+         *                   +--> master crypto service --> crypto manager
+         * master key bytes -+
+         * fhe engine
+         *
+         * Nothing needs the engine while connecting, so it is only waited on when loading it eagerly. Keys restored
+         * from a snapshot are only used once the server has confirmed them, which takes one round trip. The engine is
+         * restored in the meantime and discarded if the snapshot turns out to be stale.
+         */
+        ListeningExecutorService bootstrap = KryptnosticExecutors.newFixedThreadPool(
+                "connection-bootstrap",
+                BOOTSTRAP_THREADS );
+        try {
+            final ListenableFuture<Boolean> validation;
+            if ( restored.isPresent() ) {
+                validation = bootstrap.submit( timed( "validation", validateSession( restored.get().keyPair ) ) );
+            } else {
+                validation = Futures.immediateFuture( false );
+            }
+            this.engineHolder = ListenableFutureTask.create( timed( "engine",
+                    new Callable<KryptnosticEngineHolder>() {
+                        @Override
+                        public KryptnosticEngineHolder call() throws IrisException {
+                            if ( restored.isPresent() && restored.get().snapshot.hasEngineKeys() ) {
+                                KryptnosticEngineHolder holder = restoreEngine( restored.get().snapshot );
+                                if ( awaitPhase( validation ) ) {
+                                    return holder;
+                                }
+                            }
+                            return loadEngine();
+                        }
+                    } ) );
+            if ( options.getEngineLoading() != EngineLoading.LAZY ) {
+                // Shutting down the bootstrap executor lets a background load run to completion.
+                bootstrap.execute( engineHolder );
+            }
+
+            if ( restored.isPresent() && awaitPhase( validation ) ) {
+                session = restored;
+            } else {
+                session = Optional.absent();
+            }
+
+            ListenableFuture<KeyPair> rsaKeys;
+            if ( session.isPresent() ) {
+                rsaKeys = Futures.immediateFuture( session.get().keyPair );
+            } else if ( keyPair == null ) {
+                rsaKeys = bootstrap.submit( timed( "rsa", new Callable<KeyPair>() {
+                    @Override
+                    public KeyPair call() throws IrisException {
+                        return loadRsaKeys();
+                    }
+                } ) );
+            } else {
+                rsaKeys = Futures.immediateFuture( keyPair );
+            }
+            ListenableFuture<byte[]> masterCryptoServiceBytes = null;
+            if ( !session.isPresent() ) {
+                masterCryptoServiceBytes = bootstrap.submit( timed( "master-fetch",
+                        new Callable<byte[]>() {
+                            @Override
+                            public byte[] call() {
+                                return fetchMasterCryptoService();
+                            }
+                        } ) );
+            }
+
+            KeyPair rsaKeyPair = awaitPhase( rsaKeys );
+            this.rsaPrivateKey = rsaKeyPair.getPrivate();
+            this.rsaPublicKey = rsaKeyPair.getPublic();
+
+            this.loader = new KryptnosticCryptoServiceLoader(
+                    this,
+                    keyStorageApi,
+                    objectStorageApi,
+                    Cypher.AES_CTR_128,
+                    options.isAsyncKeyUpload() );
+
+            if ( session.isPresent() ) {
+                masterCryptoService = session.get().masterCryptoService;
+            } else {
+                watch = Stopwatch.createStarted();
+                masterCryptoService = loadMasterCryptoService( rsaKeyPair, awaitPhase( masterCryptoServiceBytes ) );
+                recordPhase( "master", watch );
+            }
+
+            if ( options.getEngineLoading() == EngineLoading.EAGER ) {
+                awaitPhase( engineHolder );
+            }
+        } finally {
+            bootstrap.shutdown();
         }
-        this.rsaPrivateKey = keyPair.getPrivate();
-        this.rsaPublicKey = keyPair.getPublic();
-        logger.trace( "[PROFILE] load rsa keys {} ms", watch.elapsed( TimeUnit.MILLISECONDS ) );
-
-        this.loader = new KryptnosticCryptoServiceLoader( this, keyStorageApi, objectStorageApi, Cypher.AES_CTR_128 );
-        masterCryptoService = loadMasterCryptoService();
-        KryptnosticEngineHolder holder = loadEngine();
-        this.engine = holder.engine;
-        this.clientHashFunction = holder.clientHashFunction;
         this.cryptoManager = new DefaultKryptnosticCryptoManager( this );
+        this.searchTokenCache = new SearchTokenCache(
+                options.getSearchTokenCacheSize(),
+                dataStore,
+                masterCryptoService,
+                options.isPersistSearchTokens() );
+        this.searchResultCache = new SearchResultCache(
+                options.getSearchResultCacheSize(),
+                options.getSearchResultCacheTtlSeconds() );
+        final int enginePoolSize = options.getEnginePoolSize();
+        this.enginePool = Suppliers.memoize( new Supplier<KryptnosticEnginePool>() {
+            @Override
+            public KryptnosticEnginePool get() {
+                return new KryptnosticEnginePool( getKryptnosticEngine(), enginePoolSize );
+            }
+        } );
+
+        if ( options.isSessionSnapshot() ) {
+            saveSession( session );
+        }
+        logger.debug( "[PROFILE] connection bootstrap {} ms, phases {}",
+                total.elapsed( TimeUnit.MILLISECONDS ),
+                bootstrapTimings );
     }
 
     private static String bootstrapCredential( UUID userKey, String url, String password, Client client )
@@ -147,7 +333,132 @@ public class CachingKryptnosticConnection implements KryptnosticConnection {
         }
     }
 
-    private CryptoService loadMasterCryptoService() throws IrisException {
+    private <T> Callable<T> timed( final String phase, final Callable<T> call ) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                Stopwatch watch = Stopwatch.createStarted();
+                try {
+                    return call.call();
+                } finally {
+                    recordPhase( phase, watch );
+                }
+            }
+        };
+    }
+
+    private void recordPhase( String phase, Stopwatch watch ) {
+        long elapsed = watch.elapsed( TimeUnit.MILLISECONDS );
+        bootstrapTimings.put( phase, elapsed );
+        KryptnosticMetrics.recordPhase( "bootstrap." + phase, watch );
+        logger.trace( "[PROFILE] bootstrap {} {} ms", phase, elapsed );
+    }
+
+    private static <T> T awaitPhase( ListenableFuture<T> phase ) throws IrisException {
+        try {
+            return phase.get();
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IrisException( e );
+        } catch ( ExecutionException e ) {
+            Throwables.propagateIfPossible( e.getCause(), IrisException.class );
+            throw new IrisException( e.getCause() );
+        }
+    }
+
+    /**
+     * @return Milliseconds spent in each bootstrap phase. Phases run concurrently, so these don't add up to the total.
+     */
+    public Map<String, Long> getBootstrapTimings() {
+        return ImmutableMap.copyOf( bootstrapTimings );
+    }
+
+    private static class RestoredSession {
+        public SessionSnapshot snapshot;
+        public KeyPair         keyPair;
+        public CryptoService   masterCryptoService;
+    }
+
+    private Optional<RestoredSession> restoreSession() {
+        Optional<SessionSnapshot> snapshot = snapshots.load( userKey );
+        if ( !snapshot.isPresent() ) {
+            return Optional.absent();
+        }
+        try {
+            RestoredSession restored = new RestoredSession();
+            restored.snapshot = snapshot.get();
+            restored.keyPair = new KeyPair(
+                    Keys.publicKeyFromBytes( RsaKeyLoader.ALGORITHM, restored.snapshot.getRsaPublicKey() ),
+                    Keys.privateKeyFromBytes( RsaKeyLoader.ALGORITHM, restored.snapshot.getRsaPrivateKey() ) );
+            restored.masterCryptoService = marshaller.fromBytes( restored.snapshot.getMasterCryptoService(),
+                    AesCryptoService.class );
+            logger.debug( "Restored keys from session snapshot." );
+            return Optional.of( restored );
+        } catch ( InvalidKeySpecException | NoSuchAlgorithmException | IOException e ) {
+            logger.warn( "Unable to restore keys from session snapshot, discarding it.", e );
+            snapshots.delete();
+            return Optional.absent();
+        }
+    }
+
+    /**
+     * Checks restored keys against the server. A snapshot that is out of sync is discarded, and the connection goes
+     * through the full bootstrap instead.
+     */
+    private Callable<Boolean> validateSession( final KeyPair keyPair ) {
+        return new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws SecurityConfigurationException {
+                BlockCiphertext networkPrivateKey = keyStorageApi.getRSAPrivateKey();
+                boolean valid = networkPrivateKey != null
+                        && Arrays.equals( cryptoService.decryptBytes( networkPrivateKey ), keyPair
+                                .getPrivate().getEncoded() );
+                if ( !valid ) {
+                    logger.warn( "Keys restored from session snapshot do not match the server, discarding it." );
+                    snapshots.delete();
+                }
+                return valid;
+            }
+        };
+    }
+
+    /**
+     * Saves a snapshot of the keys now, unless they were just restored from one, and again with the FHE keys once the
+     * engine has been loaded.
+     */
+    private void saveSession( Optional<RestoredSession> restored ) {
+        if ( restored.isPresent() && restored.get().snapshot.hasEngineKeys() ) {
+            return;
+        }
+        final SessionSnapshot snapshot;
+        try {
+            snapshot = new SessionSnapshot(
+                    userKey,
+                    rsaPrivateKey.getEncoded(),
+                    rsaPublicKey.getEncoded(),
+                    marshaller.toBytes( masterCryptoService ) );
+        } catch ( IOException e ) {
+            logger.warn( "Unable to create session snapshot.", e );
+            return;
+        }
+        if ( !restored.isPresent() ) {
+            snapshots.save( snapshot );
+        }
+        Futures.addCallback( engineHolder, new FutureCallback<KryptnosticEngineHolder>() {
+            @Override
+            public void onSuccess( KryptnosticEngineHolder holder ) {
+                snapshots.save( snapshot.withEngineKeys(
+                        holder.engine.getPrivateKey(),
+                        holder.engine.getSearchPrivateKey(),
+                        holder.clientHashFunction ) );
+            }
+
+            @Override
+            public void onFailure( Throwable t ) {}
+        } );
+    }
+
+    private byte[] fetchMasterCryptoService() {
         byte[] cryptoServiceBytes = null;
         try {
             cryptoServiceBytes = dataStore.get( MASTER_CRYPTO_SERVICE );
@@ -159,15 +470,23 @@ public class CachingKryptnosticConnection implements KryptnosticConnection {
             logger.info( "Trying to load master crypto service from network " );
             cryptoServiceBytes = keyStorageApi.getMasterCryptoService();
         }
+        return cryptoServiceBytes;
+    }
 
+    private CryptoService loadMasterCryptoService( KeyPair keyPair, byte[] cryptoServiceBytes ) throws IrisException {
         try {
+            // The crypto manager isn't available yet, so build the RSA crypto service directly from the key pair.
+            RsaCompressingCryptoService rsaCryptoService = new RsaCompressingCryptoService(
+                    RsaKeyLoader.CIPHER,
+                    keyPair.getPrivate(),
+                    keyPair.getPublic() );
             if ( cryptoServiceBytes == null ) {
                 CryptoService cs = new AesCryptoService( Cypher.AES_CTR_128 );
-                byte[] encryptedMasterKey = newCryptoManager().getRsaCryptoService().encrypt( cs );
+                byte[] encryptedMasterKey = rsaCryptoService.encrypt( cs );
                 dataStore.put( MASTER_CRYPTO_SERVICE, encryptedMasterKey );
                 return cs;
             }
-            return newCryptoManager().getRsaCryptoService().decrypt( cryptoServiceBytes, AesCryptoService.class );
+            return rsaCryptoService.decrypt( cryptoServiceBytes, AesCryptoService.class );
 
         } catch (
                 SecurityConfigurationException
@@ -179,11 +498,9 @@ public class CachingKryptnosticConnection implements KryptnosticConnection {
         }
     }
 
-    private KeyPair loadRsaKeys(
-            PasswordCryptoService crypto,
-            UUID userKey,
-            DataStore dataStore,
-            KeyStorageApi keyClient ) throws IrisException {
+    private KeyPair loadRsaKeys() throws IrisException {
+        PasswordCryptoService crypto = cryptoService;
+        KeyStorageApi keyClient = keyStorageApi;
         KeyPair keyPair = null;
 
         try {
@@ -280,6 +597,24 @@ public class CachingKryptnosticConnection implements KryptnosticConnection {
         return dataStore;
     }
 
+    @Override
+    public SearchTokenCache getSearchTokenCache() {
+        return searchTokenCache;
+    }
+
+    @Override
+    public SearchResultCache getSearchResultCache() {
+        return searchResultCache;
+    }
+
+    /**
+     * Creates the pool the first time it is needed, which also loads the engine if it hasn't been loaded yet.
+     */
+    @Override
+    public KryptnosticEnginePool getKryptnosticEnginePool() {
+        return enginePool.get();
+    }
+
     @Override
     public PrivateKey getPrivateKey() {
         return rsaPrivateKey;
@@ -297,7 +632,7 @@ public class CachingKryptnosticConnection implements KryptnosticConnection {
 
     @Override
     public KryptnosticEngine getKryptnosticEngine() {
-        return engine;
+        return getEngineHolder().engine;
     }
 
     @Override
@@ -310,6 +645,14 @@ public class CachingKryptnosticConnection implements KryptnosticConnection {
         public byte[]            clientHashFunction;
     }
 
+    private KryptnosticEngineHolder restoreEngine( SessionSnapshot snapshot ) {
+        KryptnosticEngineHolder holder = new KryptnosticEngineHolder();
+        holder.engine = new KryptnosticEngine();
+        holder.engine.initClient( snapshot.getFhePrivateKey(), snapshot.getFheSearchPrivateKey() );
+        holder.clientHashFunction = snapshot.getClientHashFunction();
+        return holder;
+    }
+
     private KryptnosticEngineHolder loadEngine() throws IrisException {
         KryptnosticEngineHolder holder = new KryptnosticEngineHolder();
         /*
@@ -422,7 +765,21 @@ public class CachingKryptnosticConnection implements KryptnosticConnection {
 
     @Override
     public byte[] getClientHashFunction() {
-        return clientHashFunction;
+        return getEngineHolder().clientHashFunction;
+    }
+
+    /**
+     * Loads the engine on the calling thread unless it is already loaded or being loaded elsewhere, in which case this
+     * waits for it.
+     */
+    private KryptnosticEngineHolder getEngineHolder() {
+        // A no-op once the task has started.
+        engineHolder.run();
+        try {
+            return Uninterruptibles.getUninterruptibly( engineHolder );
+        } catch ( ExecutionException e ) {
+            throw Throwables.propagate( e.getCause() );
+        }
     }
 
     @Override
@@ -0,0 +1,172 @@
+package com.kryptnostic.api.v1.security;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.kryptnostic.api.v1.client.LoadBalancingClient;
+import com.kryptnostic.api.v1.client.LoadBalancingClient.Strategy;
+import com.kryptnostic.api.v1.search.SearchResultCache;
+import com.kryptnostic.api.v1.search.SearchTokenCache;
+
+/**
+ * Tuning options for a {@link CachingKryptnosticConnection}. Use {@link ConnectionOptionsBuilder} to create instances.
+ */
+public class ConnectionOptions {
+    public static final boolean       ASYNC_KEY_UPLOAD_DEFAULT                = false;
+    public static final EngineLoading ENGINE_LOADING_DEFAULT                  = EngineLoading.EAGER;
+    public static final boolean       SESSION_SNAPSHOT_DEFAULT                = false;
+    public static final WireFormat    WIRE_FORMAT_DEFAULT                     = WireFormat.JSON;
+    public static final List<String>  ENDPOINTS_DEFAULT                       = ImmutableList.of();
+    public static final Strategy      BALANCING_DEFAULT                       = Strategy.LEAST_OUTSTANDING;
+    public static final long          SEARCH_TOKEN_CACHE_SIZE_DEFAULT         = 10000;
+    public static final boolean       PERSIST_SEARCH_TOKENS_DEFAULT           = false;
+    public static final int           ENGINE_POOL_SIZE_DEFAULT                = Runtime.getRuntime()
+                                                                                        .availableProcessors();
+    public static final long          SEARCH_RESULT_CACHE_SIZE_DEFAULT        = 1000;
+    public static final long          SEARCH_RESULT_CACHE_TTL_SECONDS_DEFAULT = 60;
+
+    private final boolean             asyncKeyUpload;
+    private final EngineLoading       engineLoading;
+    private final boolean             sessionSnapshot;
+    private final WireFormat          wireFormat;
+    private final List<String>        endpoints;
+    private final Strategy            balancing;
+    private final long                searchTokenCacheSize;
+    private final boolean             persistSearchTokens;
+    private final int                 enginePoolSize;
+    private final long                searchResultCacheSize;
+    private final long                searchResultCacheTtlSeconds;
+
+    /**
+     * When the FHE engine and its keys are loaded. Clients that only store and retrieve objects never need the engine.
+     */
+    public enum EngineLoading {
+        /**
+         * Load while connecting. Connecting fails if the engine can't be loaded.
+         */
+        EAGER,
+        /**
+         * Load in the background once connected. Callers that need the engine first wait for it.
+         */
+        BACKGROUND,
+        /**
+         * Load the first time the engine is needed.
+         */
+        LAZY
+    }
+
+    /**
+     * Encoding used for API requests and responses. Raw byte payloads are always sent as is.
+     */
+    public enum WireFormat {
+        JSON,
+        /**
+         * Jackson's binary Smile encoding, negotiated with the server and falling back to json.
+         */
+        SMILE
+    }
+
+    public ConnectionOptions(
+            boolean asyncKeyUpload,
+            EngineLoading engineLoading,
+            boolean sessionSnapshot,
+            WireFormat wireFormat,
+            List<String> endpoints,
+            Strategy balancing,
+            long searchTokenCacheSize,
+            boolean persistSearchTokens,
+            int enginePoolSize,
+            long searchResultCacheSize,
+            long searchResultCacheTtlSeconds ) {
+        this.asyncKeyUpload = asyncKeyUpload;
+        this.engineLoading = engineLoading;
+        this.sessionSnapshot = sessionSnapshot;
+        this.wireFormat = wireFormat;
+        this.endpoints = ImmutableList.copyOf( endpoints );
+        this.balancing = balancing;
+        this.searchTokenCacheSize = searchTokenCacheSize;
+        this.persistSearchTokens = persistSearchTokens;
+        this.enginePoolSize = enginePoolSize;
+        this.searchResultCacheSize = searchResultCacheSize;
+        this.searchResultCacheTtlSeconds = searchResultCacheTtlSeconds;
+    }
+
+    public static ConnectionOptionsBuilder builder() {
+        return new ConnectionOptionsBuilder();
+    }
+
+    public static ConnectionOptions defaults() {
+        return builder().build();
+    }
+
+    /**
+     * @return True if newly created object crypto services should be uploaded in the background.
+     */
+    public boolean isAsyncKeyUpload() {
+        return asyncKeyUpload;
+    }
+
+    public EngineLoading getEngineLoading() {
+        return engineLoading;
+    }
+
+    /**
+     * @return True if key material should be restored from, and saved to, a {@link SessionSnapshot} in the local data
+     *         store.
+     */
+    public boolean isSessionSnapshot() {
+        return sessionSnapshot;
+    }
+
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    /**
+     * @return Additional API endpoints that requests are balanced across along with the connection's url, see
+     *         {@link LoadBalancingClient}.
+     */
+    public List<String> getEndpoints() {
+        return endpoints;
+    }
+
+    public Strategy getBalancing() {
+        return balancing;
+    }
+
+    /**
+     * @return Maximum number of terms whose search tokens are cached, see {@link SearchTokenCache}.
+     */
+    public long getSearchTokenCacheSize() {
+        return searchTokenCacheSize;
+    }
+
+    /**
+     * @return True if cached search tokens should be persisted, encrypted, in the local data store.
+     */
+    public boolean isPersistSearchTokens() {
+        return persistSearchTokens;
+    }
+
+    /**
+     * @return Maximum number of FHE engines used to prepare search tokens concurrently, see
+     *         {@link KryptnosticEnginePool}.
+     */
+    public int getEnginePoolSize() {
+        return enginePoolSize;
+    }
+
+    /**
+     * @return Maximum number of queries whose decrypted results are cached, see {@link SearchResultCache}.
+     */
+    public long getSearchResultCacheSize() {
+        return searchResultCacheSize;
+    }
+
+    /**
+     * @return Seconds after which cached search results expire, to pick up objects written by other clients.
+     */
+    public long getSearchResultCacheTtlSeconds() {
+        return searchResultCacheTtlSeconds;
+    }
+}
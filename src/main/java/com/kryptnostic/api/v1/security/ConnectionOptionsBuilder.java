@@ -0,0 +1,149 @@
+package com.kryptnostic.api.v1.security;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import com.kryptnostic.api.v1.client.LoadBalancingClient.Strategy;
+import com.kryptnostic.api.v1.security.ConnectionOptions.EngineLoading;
+import com.kryptnostic.api.v1.security.ConnectionOptions.WireFormat;
+
+public class ConnectionOptionsBuilder {
+    private boolean       asyncKeyUpload;
+    private EngineLoading engineLoading;
+    private boolean       sessionSnapshot;
+    private WireFormat    wireFormat;
+    private List<String>  endpoints;
+    private Strategy      balancing;
+    private long          searchTokenCacheSize;
+    private boolean       persistSearchTokens;
+    private int           enginePoolSize;
+    private long          searchResultCacheSize;
+    private long          searchResultCacheTtlSeconds;
+
+    public ConnectionOptionsBuilder() {
+        asyncKeyUpload = ConnectionOptions.ASYNC_KEY_UPLOAD_DEFAULT;
+        engineLoading = ConnectionOptions.ENGINE_LOADING_DEFAULT;
+        sessionSnapshot = ConnectionOptions.SESSION_SNAPSHOT_DEFAULT;
+        wireFormat = ConnectionOptions.WIRE_FORMAT_DEFAULT;
+        endpoints = ConnectionOptions.ENDPOINTS_DEFAULT;
+        balancing = ConnectionOptions.BALANCING_DEFAULT;
+        searchTokenCacheSize = ConnectionOptions.SEARCH_TOKEN_CACHE_SIZE_DEFAULT;
+        persistSearchTokens = ConnectionOptions.PERSIST_SEARCH_TOKENS_DEFAULT;
+        enginePoolSize = ConnectionOptions.ENGINE_POOL_SIZE_DEFAULT;
+        searchResultCacheSize = ConnectionOptions.SEARCH_RESULT_CACHE_SIZE_DEFAULT;
+        searchResultCacheTtlSeconds = ConnectionOptions.SEARCH_RESULT_CACHE_TTL_SECONDS_DEFAULT;
+    }
+
+    /**
+     * Cache newly created object crypto services immediately and upload them from a background queue.
+     */
+    public ConnectionOptionsBuilder asyncKeyUpload() {
+        this.asyncKeyUpload = true;
+        return this;
+    }
+
+    public ConnectionOptionsBuilder syncKeyUpload() {
+        this.asyncKeyUpload = false;
+        return this;
+    }
+
+    public ConnectionOptionsBuilder engineLoading( EngineLoading engineLoading ) {
+        this.engineLoading = Preconditions.checkNotNull( engineLoading, "Engine loading cannot be null." );
+        return this;
+    }
+
+    /**
+     * Restore keys from an encrypted session snapshot in the local data store when one is present, and save a snapshot
+     * after connecting otherwise. Restored keys are checked against the server with a single request while the engine
+     * is restored, and a stale snapshot falls back to the full bootstrap.
+     */
+    public ConnectionOptionsBuilder sessionSnapshot() {
+        this.sessionSnapshot = true;
+        return this;
+    }
+
+    public ConnectionOptionsBuilder noSessionSnapshot() {
+        this.sessionSnapshot = false;
+        return this;
+    }
+
+    public ConnectionOptionsBuilder wireFormat( WireFormat wireFormat ) {
+        this.wireFormat = Preconditions.checkNotNull( wireFormat, "Wire format cannot be null." );
+        return this;
+    }
+
+    /**
+     * Balance requests across these API endpoints as well as the connection's url, ejecting endpoints that keep
+     * failing. Listing the connection's url again, or any endpoint twice, has no effect.
+     */
+    public ConnectionOptionsBuilder endpoints( String... endpoints ) {
+        return endpoints( Arrays.asList( endpoints ) );
+    }
+
+    public ConnectionOptionsBuilder endpoints( List<String> endpoints ) {
+        this.endpoints = Preconditions.checkNotNull( endpoints, "Endpoints cannot be null." );
+        return this;
+    }
+
+    public ConnectionOptionsBuilder balancing( Strategy balancing ) {
+        this.balancing = Preconditions.checkNotNull( balancing, "Balancing strategy cannot be null." );
+        return this;
+    }
+
+    public ConnectionOptionsBuilder searchTokenCacheSize( long searchTokenCacheSize ) {
+        Preconditions.checkArgument( searchTokenCacheSize >= 0, "Search token cache size cannot be negative." );
+        this.searchTokenCacheSize = searchTokenCacheSize;
+        return this;
+    }
+
+    /**
+     * Keep cached search tokens, encrypted with the master crypto service, in the local data store so that they survive
+     * restarts.
+     */
+    public ConnectionOptionsBuilder persistSearchTokens() {
+        this.persistSearchTokens = true;
+        return this;
+    }
+
+    public ConnectionOptionsBuilder noPersistSearchTokens() {
+        this.persistSearchTokens = false;
+        return this;
+    }
+
+    public ConnectionOptionsBuilder enginePoolSize( int enginePoolSize ) {
+        Preconditions.checkArgument( enginePoolSize > 0, "Engine pool size must be positive." );
+        this.enginePoolSize = enginePoolSize;
+        return this;
+    }
+
+    /**
+     * Number of queries whose decrypted results are cached. Zero disables the cache.
+     */
+    public ConnectionOptionsBuilder searchResultCacheSize( long searchResultCacheSize ) {
+        Preconditions.checkArgument( searchResultCacheSize >= 0, "Search result cache size cannot be negative." );
+        this.searchResultCacheSize = searchResultCacheSize;
+        return this;
+    }
+
+    public ConnectionOptionsBuilder searchResultCacheTtlSeconds( long searchResultCacheTtlSeconds ) {
+        Preconditions.checkArgument( searchResultCacheTtlSeconds > 0, "Search result cache TTL must be positive." );
+        this.searchResultCacheTtlSeconds = searchResultCacheTtlSeconds;
+        return this;
+    }
+
+    public ConnectionOptions build() {
+        return new ConnectionOptions(
+                asyncKeyUpload,
+                engineLoading,
+                sessionSnapshot,
+                wireFormat,
+                endpoints,
+                balancing,
+                searchTokenCacheSize,
+                persistSearchTokens,
+                enginePoolSize,
+                searchResultCacheSize,
+                searchResultCacheTtlSeconds );
+    }
+}
@@ -0,0 +1,76 @@
+package com.kryptnostic.api.v1.security;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.kryptnostic.krypto.engine.KryptnosticEngine;
+
+/**
+ * Fixed size pool of {@link KryptnosticEngine}s initialized with the same FHE keys as a connection's engine, so that
+ * expensive engine operations can run concurrently. Engines are created lazily, the first time every existing engine
+ * is busy.
+ */
+public class KryptnosticEnginePool {
+    private static final Logger                    logger  = LoggerFactory.getLogger( KryptnosticEnginePool.class );
+
+    private final KryptnosticEngine                prototype;
+    private final int                              size;
+    private final BlockingQueue<KryptnosticEngine> idle    = new LinkedBlockingQueue<>();
+    private final AtomicInteger                    created = new AtomicInteger();
+
+    public interface EngineTask<T> {
+        T run( KryptnosticEngine engine );
+    }
+
+    /**
+     * @param prototype Initialized engine whose keys are copied into the pooled engines. It is never used by the pool.
+     */
+    public KryptnosticEnginePool( KryptnosticEngine prototype, int size ) {
+        Preconditions.checkArgument( size > 0, "Engine pool size must be positive." );
+        this.prototype = Preconditions.checkNotNull( prototype, "Prototype engine cannot be null." );
+        this.size = size;
+    }
+
+    /**
+     * Runs {@code task} with an engine that no other thread is using, waiting for one if necessary.
+     */
+    public <T> T execute( EngineTask<T> task ) {
+        KryptnosticEngine engine = borrow();
+        try {
+            return task.run( engine );
+        } finally {
+            idle.add( engine );
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    private KryptnosticEngine borrow() {
+        KryptnosticEngine engine = idle.poll();
+        if ( engine != null ) {
+            return engine;
+        }
+        for ( int count = created.get(); count < size; count = created.get() ) {
+            if ( created.compareAndSet( count, count + 1 ) ) {
+                logger.debug( "Creating pooled FHE engine {} of {}.", count + 1, size );
+                try {
+                    engine = new KryptnosticEngine();
+                    engine.initClient( prototype.getPrivateKey(), prototype.getSearchPrivateKey() );
+                    return engine;
+                } catch ( RuntimeException e ) {
+                    created.decrementAndGet();
+                    throw e;
+                }
+            }
+        }
+        return Uninterruptibles.takeUninterruptibly( idle );
+    }
+}
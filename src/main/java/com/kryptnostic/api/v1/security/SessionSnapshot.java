@@ -0,0 +1,124 @@
+package com.kryptnostic.api.v1.security;
+
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Everything a connection needs to restore a user's key material without going to the network: the RSA key pair, the
+ * master crypto service and, once they have been loaded, the FHE keys. Snapshots are only ever persisted encrypted, see
+ * {@link SessionSnapshotStore}.
+ */
+public class SessionSnapshot {
+    public static final int     CURRENT_VERSION              = 1;
+
+    private static final String VERSION_FIELD                = "version";
+    private static final String USER_ID_FIELD                = "userId";
+    private static final String RSA_PRIVATE_KEY_FIELD        = "rsaPrivateKey";
+    private static final String RSA_PUBLIC_KEY_FIELD         = "rsaPublicKey";
+    private static final String MASTER_CRYPTO_SERVICE_FIELD  = "masterCryptoService";
+    private static final String FHE_PRIVATE_KEY_FIELD        = "fhePrivateKey";
+    private static final String FHE_SEARCH_PRIVATE_KEY_FIELD = "fheSearchPrivateKey";
+    private static final String CLIENT_HASH_FUNCTION_FIELD   = "clientHashFunction";
+
+    private final int           version;
+    private final UUID          userId;
+    private final byte[]        rsaPrivateKey;
+    private final byte[]        rsaPublicKey;
+    private final byte[]        masterCryptoService;
+    private final byte[]        fhePrivateKey;
+    private final byte[]        fheSearchPrivateKey;
+    private final byte[]        clientHashFunction;
+
+    /**
+     * Creates a snapshot without FHE keys, for connections that haven't loaded their engine yet.
+     */
+    public SessionSnapshot( UUID userId, byte[] rsaPrivateKey, byte[] rsaPublicKey, byte[] masterCryptoService ) {
+        this( CURRENT_VERSION, userId, rsaPrivateKey, rsaPublicKey, masterCryptoService, null, null, null );
+    }
+
+    @JsonCreator
+    public SessionSnapshot(
+            @JsonProperty( VERSION_FIELD ) int version,
+            @JsonProperty( USER_ID_FIELD ) UUID userId,
+            @JsonProperty( RSA_PRIVATE_KEY_FIELD ) byte[] rsaPrivateKey,
+            @JsonProperty( RSA_PUBLIC_KEY_FIELD ) byte[] rsaPublicKey,
+            @JsonProperty( MASTER_CRYPTO_SERVICE_FIELD ) byte[] masterCryptoService,
+            @JsonProperty( FHE_PRIVATE_KEY_FIELD ) byte[] fhePrivateKey,
+            @JsonProperty( FHE_SEARCH_PRIVATE_KEY_FIELD ) byte[] fheSearchPrivateKey,
+            @JsonProperty( CLIENT_HASH_FUNCTION_FIELD ) byte[] clientHashFunction ) {
+        this.version = version;
+        this.userId = userId;
+        this.rsaPrivateKey = rsaPrivateKey;
+        this.rsaPublicKey = rsaPublicKey;
+        this.masterCryptoService = masterCryptoService;
+        this.fhePrivateKey = fhePrivateKey;
+        this.fheSearchPrivateKey = fheSearchPrivateKey;
+        this.clientHashFunction = clientHashFunction;
+    }
+
+    /**
+     * @return A copy of this snapshot that also holds the FHE keys.
+     */
+    public SessionSnapshot withEngineKeys(
+            byte[] fhePrivateKey,
+            byte[] fheSearchPrivateKey,
+            byte[] clientHashFunction ) {
+        return new SessionSnapshot(
+                version,
+                userId,
+                rsaPrivateKey,
+                rsaPublicKey,
+                masterCryptoService,
+                fhePrivateKey,
+                fheSearchPrivateKey,
+                clientHashFunction );
+    }
+
+    @JsonProperty( VERSION_FIELD )
+    public int getVersion() {
+        return version;
+    }
+
+    @JsonProperty( USER_ID_FIELD )
+    public UUID getUserId() {
+        return userId;
+    }
+
+    @JsonProperty( RSA_PRIVATE_KEY_FIELD )
+    public byte[] getRsaPrivateKey() {
+        return rsaPrivateKey;
+    }
+
+    @JsonProperty( RSA_PUBLIC_KEY_FIELD )
+    public byte[] getRsaPublicKey() {
+        return rsaPublicKey;
+    }
+
+    @JsonProperty( MASTER_CRYPTO_SERVICE_FIELD )
+    public byte[] getMasterCryptoService() {
+        return masterCryptoService;
+    }
+
+    @JsonProperty( FHE_PRIVATE_KEY_FIELD )
+    public byte[] getFhePrivateKey() {
+        return fhePrivateKey;
+    }
+
+    @JsonProperty( FHE_SEARCH_PRIVATE_KEY_FIELD )
+    public byte[] getFheSearchPrivateKey() {
+        return fheSearchPrivateKey;
+    }
+
+    @JsonProperty( CLIENT_HASH_FUNCTION_FIELD )
+    public byte[] getClientHashFunction() {
+        return clientHashFunction;
+    }
+
+    @JsonIgnore
+    public boolean hasEngineKeys() {
+        return fhePrivateKey != null && fheSearchPrivateKey != null && clientHashFunction != null;
+    }
+}
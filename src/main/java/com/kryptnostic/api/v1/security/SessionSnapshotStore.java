@@ -0,0 +1,74 @@
+package com.kryptnostic.api.v1.security;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.kryptnostic.kodex.v1.crypto.ciphers.BlockCiphertext;
+import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
+import com.kryptnostic.kodex.v1.exceptions.types.SecurityConfigurationException;
+import com.kryptnostic.kodex.v1.serialization.jackson.KodexObjectMapperFactory;
+import com.kryptnostic.kodex.v1.storage.DataStore;
+
+/**
+ * Keeps a single {@link SessionSnapshot} in a {@link DataStore}, encrypted with the user's password derived crypto
+ * service. Restoring a session is one read and one decrypt. Snapshots that can't be read, or that belong to another
+ * user or format version, are discarded.
+ */
+public class SessionSnapshotStore {
+    private static final Logger logger           = LoggerFactory.getLogger( SessionSnapshotStore.class );
+    public static final String  SESSION_SNAPSHOT = "session-snapshot";
+
+    private final ObjectMapper  mapper           = KodexObjectMapperFactory.getSmileMapper();
+    private final DataStore     dataStore;
+    private final CryptoService crypto;
+
+    public SessionSnapshotStore( DataStore dataStore, CryptoService crypto ) {
+        this.dataStore = dataStore;
+        this.crypto = crypto;
+    }
+
+    public Optional<SessionSnapshot> load( UUID userId ) {
+        try {
+            byte[] encryptedSnapshot = dataStore.get( SESSION_SNAPSHOT );
+            if ( encryptedSnapshot == null ) {
+                return Optional.absent();
+            }
+            BlockCiphertext ciphertext = mapper.readValue( encryptedSnapshot, BlockCiphertext.class );
+            SessionSnapshot snapshot = mapper.readValue( crypto.decryptBytes( ciphertext ), SessionSnapshot.class );
+            if ( snapshot.getVersion() != SessionSnapshot.CURRENT_VERSION || !userId.equals( snapshot.getUserId() ) ) {
+                logger.info( "Discarding session snapshot with version {} for user {}.",
+                        snapshot.getVersion(),
+                        snapshot.getUserId() );
+                delete();
+                return Optional.absent();
+            }
+            return Optional.of( snapshot );
+        } catch ( IOException | SecurityConfigurationException e ) {
+            logger.warn( "Unable to read session snapshot, discarding it.", e );
+            delete();
+            return Optional.absent();
+        }
+    }
+
+    public void save( SessionSnapshot snapshot ) {
+        try {
+            BlockCiphertext ciphertext = crypto.encrypt( mapper.writeValueAsBytes( snapshot ) );
+            dataStore.put( SESSION_SNAPSHOT, mapper.writeValueAsBytes( ciphertext ) );
+        } catch ( IOException | SecurityConfigurationException e ) {
+            logger.warn( "Unable to save session snapshot.", e );
+        }
+    }
+
+    public void delete() {
+        try {
+            dataStore.delete( SESSION_SNAPSHOT );
+        } catch ( IOException e ) {
+            logger.debug( "Unable to delete session snapshot.", e );
+        }
+    }
+}
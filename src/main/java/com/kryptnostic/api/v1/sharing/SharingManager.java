@@ -150,6 +150,7 @@ public class SharingManager implements SharingClient {
         }
 
         sharingApi.addSearchPairs( objectSearchPairs );
+        connection.getSearchResultCache().onSharesReceived( objectKeys );
         return objectKeys;
     }
 
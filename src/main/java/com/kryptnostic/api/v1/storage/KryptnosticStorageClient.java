@@ -20,10 +20,13 @@ import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.kryptnostic.api.v1.KryptnosticConnection;
+import com.kryptnostic.api.v1.metrics.KryptnosticMetrics;
 import com.kryptnostic.indexing.v1.ObjectSearchPair;
 import com.kryptnostic.kodex.v1.crypto.ciphers.BlockCiphertext;
 import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
@@ -36,6 +39,7 @@ import com.kryptnostic.kodex.v1.exceptions.types.SecurityConfigurationException;
 import com.kryptnostic.krypto.engine.KryptnosticEngine;
 import com.kryptnostic.v2.crypto.CryptoMaterial;
 import com.kryptnostic.v2.crypto.CryptoServiceLoader;
+import com.kryptnostic.v2.crypto.DurableCryptoServiceLoader;
 import com.kryptnostic.v2.indexing.IndexMetadata;
 import com.kryptnostic.v2.indexing.Indexer;
 import com.kryptnostic.v2.indexing.PaddedMetadataMapper;
@@ -84,6 +88,8 @@ public class KryptnosticStorageClient implements StorageClient {
     private final CryptoServiceLoader   loader;
     private final MarshallingService    marshaller;
     private final TypeManager           typeManager;
+    private final ObjectChangeListener  changes;
+    private final Optional<ObjectCache> objectCache;
 
     public KryptnosticStorageClient(
             KryptnosticConnection connection ) throws ClassNotFoundException,
@@ -91,7 +97,22 @@ public class KryptnosticStorageClient implements StorageClient {
                     IOException,
                     ExecutionException,
                     SecurityConfigurationException {
+        this( connection, null );
+    }
+
+    /**
+     * @param objectCache Cache for decrypted objects, or null to always read objects from the server. Only worth
+     *            having when a {@link com.kryptnostic.api.v1.search.SearchPrefetcher} fills it ahead of time.
+     */
+    public KryptnosticStorageClient(
+            KryptnosticConnection connection,
+            ObjectCache objectCache ) throws ClassNotFoundException,
+                    ResourceNotFoundException,
+                    IOException,
+                    ExecutionException,
+                    SecurityConfigurationException {
         this.connection = connection;
+        this.objectCache = Optional.fromNullable( objectCache );
         this.objectApi = connection.getObjectStorageApi();
         this.listingApi = connection.getObjectListingApi();
         this.metadataMapper = new PaddedMetadataMapper( connection.newCryptoManager() );
@@ -101,12 +122,23 @@ public class KryptnosticStorageClient implements StorageClient {
         this.loader = Preconditions.checkNotNull(
                 connection.getCryptoServiceLoader(),
                 "CryptoServiceLoader from KryptnosticConnection cannot be null." );
+        this.changes = connection.getSearchResultCache();
     }
 
     @Override
     public VersionedObjectKey storeObject( StorageOptions req, Object storeable )
             throws IOException, ExecutionException, ResourceNotFoundException, SecurityConfigurationException,
             IrisException {
+        return createObject( req, storeable, true );
+    }
+
+    /**
+     * @param notifyChanges Whether to report the new object to the object and search result caches. Metadata stored
+     *            while indexing an object is covered by the report for that object.
+     */
+    private VersionedObjectKey createObject( StorageOptions req, Object storeable, boolean notifyChanges )
+            throws IOException, ExecutionException, ResourceNotFoundException, SecurityConfigurationException,
+            IrisException {
 
         CreateObjectRequest createObjectRequest = req.toCreateObjectRequest();
         VersionedObjectKey objectKey = objectApi.createObject( createObjectRequest );
@@ -131,31 +163,65 @@ public class KryptnosticStorageClient implements StorageClient {
 
         if ( req.isStoreable() ) {
             // TODO: Add BLOCK chunking
+            Stopwatch watch = Stopwatch.createStarted();
             BlockCiphertext ciphertext = objectCryptoService.encrypt( actualBytes );
+            KryptnosticMetrics.recordPhase( KryptnosticMetrics.ENCRYPTION, watch );
 
+            // Content is only readable once its key is on the server, so gate the upload on key durability.
+            awaitKeyDurability( objectKey );
             storeObject( objectKey, ciphertext, createObjectRequest.getCipherType() );
         }
 
+        Set<String> terms = ImmutableSet.of();
         if ( req.isSearchable() && ( storeable instanceof String ) ) {
             // Setting up sharing is only required if object is searchable.
             byte[] objectIndexPair = provisionSearchPairAndReturnCorrespondingIndexPair( objectKey );
-            makeObjectSearchable( objectKey, (String) storeable, objectIndexPair );
+            terms = makeObjectSearchable( objectKey, (String) storeable, objectIndexPair );
+        }
+        if ( notifyChanges ) {
+            if ( objectCache.isPresent() ) {
+                objectCache.get().onObjectStored( objectKey, terms );
+            }
+            changes.onObjectStored( objectKey, terms );
         }
 
         return objectKey;
     }
 
-    private void makeObjectSearchable( VersionedObjectKey key, String data, byte[] objectIndexPair )
+    private void awaitKeyDurability( VersionedObjectKey objectKey ) throws ExecutionException, IrisException {
+        if ( loader instanceof DurableCryptoServiceLoader ) {
+            Stopwatch watch = Stopwatch.createStarted();
+            try {
+                ( (DurableCryptoServiceLoader) loader ).whenDurable( objectKey ).get();
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new IrisException( e );
+            }
+            logger.trace( "[PROFILE] waited {} ms for key durability", watch.elapsed( TimeUnit.MILLISECONDS ) );
+        }
+    }
+
+    /**
+     * @return The terms the object was indexed under.
+     */
+    private Set<String> makeObjectSearchable( VersionedObjectKey key, String data, byte[] objectIndexPair )
             throws IrisException {
         // index + map tokens for metadata
         Stopwatch watch = Stopwatch.createStarted();
         Set<BucketedMetadata> metadata = indexer.index( key, data );
+        KryptnosticMetrics.recordPhase( KryptnosticMetrics.INDEXING, watch );
         logger.trace( "[PROFILE] indexer took {} ms", watch.elapsed( TimeUnit.MILLISECONDS ) );
         logger.trace( "[PROFILE] {} metadata indexed", metadata.size() );
 
         watch.reset().start();
         prepareMetadata( metadata, objectIndexPair );
         logger.trace( "[PROFILE] indexing and uploading took {} ms", watch.elapsed( TimeUnit.MILLISECONDS ) );
+
+        Set<String> terms = Sets.newHashSetWithExpectedSize( metadata.size() );
+        for ( BucketedMetadata metadatum : metadata ) {
+            terms.add( metadatum.getTerm() );
+        }
+        return terms;
     }
 
     private byte[] provisionSearchPairAndReturnCorrespondingIndexPair( VersionedObjectKey key ) {
@@ -202,16 +268,41 @@ public class KryptnosticStorageClient implements StorageClient {
         }
     }
 
+    /**
+     * The latest version of the object is served from the {@link ObjectCache} when it has it, which search prefetching
+     * fills ahead of time. The metadata is always fetched first so that a version stored by another client is never
+     * hidden by a cached one.
+     */
     @Override
     public Object getObject( UUID id ) throws IOException, ExecutionException, SecurityConfigurationException {
-        // TODO: Cache
         ObjectMetadata objectMetadata = objectApi.getObjectMetadata( id );
+        Optional<Object> cached = getCachedObject( id, objectMetadata.getVersion() );
+        if ( cached.isPresent() ) {
+            return cached.get();
+        }
         BlockCiphertext ciphertext = getCiphertextUsingMetadata( objectMetadata );
         CryptoService service = loader.get( VersionedObjectKey.fromObjectMetadata( objectMetadata ) ).get();
 
         byte[] raw = service.decryptBytes( ciphertext );
 
-        return marshaller.fromTypeBytes( new TypedBytes( raw, objectMetadata.getType() ) );
+        return unmarshal( id, objectMetadata.getVersion(), new TypedBytes( raw, objectMetadata.getType() ) );
+    }
+
+    private Optional<Object> getCachedObject( UUID objectId, long version ) throws IOException {
+        if ( objectCache.isPresent() ) {
+            Optional<TypedBytes> cached = objectCache.get().get( objectId, version );
+            if ( cached.isPresent() ) {
+                return Optional.of( marshaller.fromTypeBytes( cached.get() ) );
+            }
+        }
+        return Optional.absent();
+    }
+
+    private Object unmarshal( UUID objectId, long version, TypedBytes bytes ) throws IOException {
+        if ( objectCache.isPresent() ) {
+            objectCache.get().put( objectId, version, bytes );
+        }
+        return marshaller.fromTypeBytes( bytes );
     }
 
     private BlockCiphertext getCiphertextUsingMetadata( ObjectMetadata metadata ) {
@@ -239,8 +330,10 @@ public class KryptnosticStorageClient implements StorageClient {
                     throws IrisException {
 
         // create plaintext metadata
+        Stopwatch watch = Stopwatch.createStarted();
         Map<ByteBuffer, List<Metadata>> mappedMetadata = metadataMapper.mapTokensToKeys( metadata,
                 objectIndexPair );
+        KryptnosticMetrics.recordPhase( KryptnosticMetrics.MAPPING, watch );
                 // logger.debug( "generated plaintext metadata {}", keyedMetadata );
 
         // encrypt the metadata and format for the server
@@ -261,7 +354,7 @@ public class KryptnosticStorageClient implements StorageClient {
                         .build();
                 VersionedObjectKey metadataObjectKey;
                 try {
-                    metadataObjectKey = storeObject( options, metadatumToEncrypt );
+                    metadataObjectKey = createObject( options, metadatumToEncrypt, false );
                 } catch (
                         SecurityConfigurationException
                         | ResourceNotFoundException
@@ -284,12 +377,19 @@ public class KryptnosticStorageClient implements StorageClient {
 
     @Override
     public void deleteMetadataForObjectId( UUID objectId ) {
-
+        if ( objectCache.isPresent() ) {
+            objectCache.get().onObjectDeleted( objectId );
+        }
+        changes.onObjectDeleted( objectId );
     }
 
     @Override
     public void deleteObject( UUID objectId ) {
         objectApi.delete( objectId );
+        if ( objectCache.isPresent() ) {
+            objectCache.get().onObjectDeleted( objectId );
+        }
+        changes.onObjectDeleted( objectId );
     }
 
     @Override
@@ -334,6 +434,14 @@ public class KryptnosticStorageClient implements StorageClient {
         return null;
     }
 
+    /**
+     * @return The indexer used to index stored objects. Searches must analyze their terms with the same analyzers to
+     *         find anything.
+     */
+    public Indexer getIndexer() {
+        return indexer;
+    }
+
     @Override
     public Set<UUID> getObjectIds() {
         return listingApi.getAllObjectIds( connection.getUserId() );
@@ -367,6 +475,10 @@ public class KryptnosticStorageClient implements StorageClient {
             SecurityConfigurationException, IOException {
         UUID objectId = objectMetadata.getId();
         long version = objectMetadata.getVersion();
+        Optional<Object> cached = getCachedObject( objectId, version );
+        if ( cached.isPresent() ) {
+            return cached.get();
+        }
 
         Optional<CryptoService> maybeObjectCryptoService = loader.get( new VersionedObjectKey( objectId, version ) );
 
@@ -386,7 +498,7 @@ public class KryptnosticStorageClient implements StorageClient {
                     Optional.<byte[]> of( tag ) );
 
             byte[] bytes = objectCryptoService.decryptBytes( ciphertext );
-            return marshaller.fromTypeBytes( new TypedBytes( bytes, objectMetadata.getType() ) );
+            return unmarshal( objectId, version, new TypedBytes( bytes, objectMetadata.getType() ) );
         }
         logger.error( "Unable to find crypto service for object: {}", objectMetadata );
         throw new ResourceNotFoundException( "Unable to find crypto service for object: " + objectMetadata.toString() );
@@ -0,0 +1,112 @@
+package com.kryptnostic.api.v1.storage;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.kryptnostic.api.v1.metrics.KryptnosticMetrics;
+import com.kryptnostic.v2.storage.models.VersionedObjectKey;
+import com.kryptnostic.v2.types.TypedBytes;
+
+/**
+ * Cache of decrypted objects, keyed by object id and tagged with the version they were read at. Entries are only
+ * served for the version asked for, so callers check the latest version before reading. Objects are kept in their
+ * serialized form and unmarshalled by the caller on every read, so callers never share an instance.
+ * <p>
+ * Entries are dropped when this client stores a new version of, or deletes, the object, and otherwise expire.
+ * <p>
+ * Unlike the {@link com.kryptnostic.api.v1.search.SearchResultCache}, entries are not trusted on write invalidation and
+ * expiry alone. Another client may have stored a newer version in the meantime, and serving the old one would hand out
+ * stale content for as long as the entry lives. Opening an object by id therefore still costs one metadata round trip
+ * to learn its latest version. What the cache saves is the download and decryption. Callers that already hold the
+ * metadata, such as search results, open cached objects without any round trip through
+ * {@link KryptnosticStorageClient#getObject(com.kryptnostic.v2.storage.models.ObjectMetadata)}.
+ */
+public class ObjectCache implements ObjectChangeListener {
+    public static final long                   DEFAULT_MAXIMUM_SIZE               = 256;
+    public static final long                   DEFAULT_EXPIRE_AFTER_WRITE_MINUTES = 5;
+    public static final String                 HITS                               = "storage.object-cache.hits";
+    public static final String                 MISSES                             = "storage.object-cache.misses";
+
+    private final Cache<UUID, VersionedObject> cache;
+
+    public ObjectCache() {
+        this( DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_WRITE_MINUTES );
+    }
+
+    public ObjectCache( long maximumSize, long expireAfterWriteMinutes ) {
+        this.cache = CacheBuilder.newBuilder().maximumSize( maximumSize )
+                .expireAfterWrite( expireAfterWriteMinutes, TimeUnit.MINUTES ).recordStats().build();
+    }
+
+    /**
+     * @return The decrypted bytes of the object with {@code objectId}, only if they were read at {@code version}.
+     */
+    public Optional<TypedBytes> get( UUID objectId, long version ) {
+        VersionedObject cached = cache.getIfPresent( objectId );
+        return record( cached != null && cached.version == version ? cached : null );
+    }
+
+    public void put( UUID objectId, long version, TypedBytes object ) {
+        cache.put( objectId, new VersionedObject( version, object ) );
+    }
+
+    public boolean contains( UUID objectId ) {
+        return cache.getIfPresent( objectId ) != null;
+    }
+
+    public void invalidate( UUID objectId ) {
+        cache.invalidate( objectId );
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void onObjectStored( VersionedObjectKey objectKey, Set<String> terms ) {
+        VersionedObject cached = cache.getIfPresent( objectKey.getObjectId() );
+        if ( cached != null && cached.version != objectKey.getVersion() ) {
+            invalidate( objectKey.getObjectId() );
+        }
+    }
+
+    @Override
+    public void onObjectDeleted( UUID objectId ) {
+        invalidate( objectId );
+    }
+
+    @Override
+    public void onSharesReceived( Set<VersionedObjectKey> objectKeys ) {}
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    private static Optional<TypedBytes> record( VersionedObject cached ) {
+        if ( cached == null ) {
+            KryptnosticMetrics.getRegistry().incrementCounter( MISSES );
+            return Optional.absent();
+        }
+        KryptnosticMetrics.getRegistry().incrementCounter( HITS );
+        return Optional.of( cached.object );
+    }
+
+    private static final class VersionedObject {
+        private final long       version;
+        private final TypedBytes object;
+
+        private VersionedObject( long version, TypedBytes object ) {
+            this.version = version;
+            this.object = object;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.kryptnostic.api.v1.storage;
+
+import java.util.Set;
+import java.util.UUID;
+
+import com.kryptnostic.v2.storage.models.VersionedObjectKey;
+
+/**
+ * Notified by this client's storage and sharing operations whenever the set of searchable objects changes.
+ */
+public interface ObjectChangeListener {
+    /**
+     * Called after an object has been stored.
+     *
+     * @param terms Analyzed terms the object was indexed under, empty if it isn't searchable.
+     */
+    void onObjectStored( VersionedObjectKey objectKey, Set<String> terms );
+
+    /**
+     * Called after an object, or its index metadata, has been deleted.
+     */
+    void onObjectDeleted( UUID objectId );
+
+    /**
+     * Called after incoming shares have been processed and their objects made searchable.
+     */
+    void onSharesReceived( Set<VersionedObjectKey> objectKeys );
+}
@@ -3,7 +3,6 @@ package com.kryptnostic.api.v1.utils;
 import java.io.IOException;
 import java.lang.reflect.Type;
 
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,10 +24,8 @@ public class ByteArrayConverter implements Converter {
 
     @Override
     public Object fromBody( TypedInput body, Type type ) throws ConversionException {
-        byte[] readbuf;
         try {
-            readbuf = IOUtils.toByteArray( body.in() );
-            return readbuf;
+            return TypedInputs.toByteArray( body );
         } catch ( IOException e ) {
             logger.error( "Unable to deserialize object of type {}", type );
             throw new ConversionException( e );
@@ -1,10 +1,8 @@
 package com.kryptnostic.api.v1.utils;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.lang.reflect.Type;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,12 +43,12 @@ public class KryptnosticConverter implements Converter {
     @Override
     public Object fromBody( TypedInput body, Type type ) throws ConversionException {
         String mimeType = body.mimeType();
-        try ( InputStream in = body.in() ) {
+        try {
             if ( StringUtils.equals( mimeType, BYTE_MIME_TYPE ) ) {
-                return IOUtils.toByteArray( in );
+                return TypedInputs.toByteArray( body );
             }
             JavaType javaType = objectMapper.getTypeFactory().constructType( type );
-            return objectMapper.readValue( in, javaType );
+            return TypedInputs.readValue( objectMapper, body, javaType );
         } catch ( IOException e ) {
             logger.error( "Unable to deserialize object of type {} from body with mime-type {}.",
                     type,
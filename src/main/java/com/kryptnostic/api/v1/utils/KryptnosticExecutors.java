@@ -0,0 +1,37 @@
+package com.kryptnostic.api.v1.utils;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Factory for the background executors used by the client. All threads are daemon threads so that an open connection
+ * never keeps the JVM alive.
+ */
+public final class KryptnosticExecutors {
+    private KryptnosticExecutors() {}
+
+    public static ListeningExecutorService newFixedThreadPool( String name, int threads ) {
+        return MoreExecutors.listeningDecorator( Executors.newFixedThreadPool( threads, newThreadFactory( name ) ) );
+    }
+
+    public static ListeningExecutorService newSingleThreadExecutor( String name ) {
+        return MoreExecutors.listeningDecorator( Executors.newSingleThreadExecutor( newThreadFactory( name ) ) );
+    }
+
+    public static ScheduledExecutorService newScheduledThreadPool( String name, int threads ) {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor( threads, newThreadFactory( name ) );
+        // Cancelled tasks would otherwise stay queued until their delay runs out.
+        executor.setRemoveOnCancelPolicy( true );
+        return executor;
+    }
+
+    private static ThreadFactory newThreadFactory( String name ) {
+        return new ThreadFactoryBuilder().setDaemon( true ).setNameFormat( name + "-%d" ).build();
+    }
+}
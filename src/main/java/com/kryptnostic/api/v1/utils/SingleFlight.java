@@ -0,0 +1,56 @@
+package com.kryptnostic.api.v1.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Coalesces concurrent calls for the same key so that only one of them does the work and the rest share its result.
+ * Nothing is cached once a call completes; callers that arrive afterwards start a new call.
+ *
+ * @param <K> Key identifying the call.
+ * @param <V> Result of the call.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, SettableFuture<V>> inFlight = Maps.newConcurrentMap();
+
+    /**
+     * Runs {@code call} unless a call for {@code key} is already in flight, in which case this waits for and returns
+     * that call's result.
+     *
+     * @throws ExecutionException If the call that did the work failed.
+     */
+    public V execute( K key, Callable<V> call ) throws ExecutionException {
+        SettableFuture<V> flight = SettableFuture.create();
+        SettableFuture<V> existing = inFlight.putIfAbsent( key, flight );
+        if ( existing != null ) {
+            return Uninterruptibles.getUninterruptibly( existing );
+        }
+
+        try {
+            V value = call.call();
+            flight.set( value );
+            return value;
+        } catch ( Exception e ) {
+            flight.setException( e );
+            throw new ExecutionException( e );
+        } catch ( Error e ) {
+            flight.setException( e );
+            throw e;
+        } finally {
+            inFlight.remove( key, flight );
+        }
+    }
+
+    /**
+     * @return The in flight call for {@code key} or null if there isn't one.
+     */
+    public ListenableFuture<V> getInFlight( K key ) {
+        return inFlight.get( key );
+    }
+}
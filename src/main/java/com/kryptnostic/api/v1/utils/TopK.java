@@ -0,0 +1,53 @@
+package com.kryptnostic.api.v1.utils;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+/**
+ * Keeps the {@code k} greatest elements offered to it, according to a comparator, in a bounded min-heap. Offering n
+ * elements takes O(n log k) time and O(k) space, instead of sorting all of them. Not thread safe.
+ */
+public final class TopK<T> {
+    private final int                   k;
+    private final Comparator<? super T> comparator;
+    private final PriorityQueue<T>      heap;
+
+    public TopK( int k, Comparator<? super T> comparator ) {
+        Preconditions.checkArgument( k > 0, "k must be positive." );
+        this.k = k;
+        this.comparator = Preconditions.checkNotNull( comparator, "Comparator cannot be null." );
+        this.heap = new PriorityQueue<>( k, comparator );
+    }
+
+    /**
+     * @return True if {@code element} is currently among the top k.
+     */
+    public boolean offer( T element ) {
+        if ( heap.size() < k ) {
+            return heap.offer( element );
+        }
+        if ( comparator.compare( element, heap.peek() ) <= 0 ) {
+            return false;
+        }
+        heap.poll();
+        return heap.offer( element );
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * @return The retained elements, greatest first.
+     */
+    public List<T> toSortedList() {
+        List<T> sorted = Lists.newArrayList( heap );
+        Collections.sort( sorted, Collections.reverseOrder( comparator ) );
+        return sorted;
+    }
+}
@@ -0,0 +1,59 @@
+package com.kryptnostic.api.v1.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+
+import retrofit.mime.TypedByteArray;
+import retrofit.mime.TypedInput;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Helpers for reading Retrofit response bodies without redundant copies. Retrofit buffers non-streaming responses into a
+ * {@link TypedByteArray}, whose bytes are used directly. Other bodies are read into a buffer sized from their content
+ * length when it is known.
+ */
+public final class TypedInputs {
+    private TypedInputs() {}
+
+    /**
+     * @return True if {@code body} is known to have no content.
+     */
+    public static boolean isEmpty( TypedInput body ) {
+        return body == null || body.length() == 0;
+    }
+
+    /**
+     * Returns the content of {@code body}. For a {@link TypedByteArray} this is its backing array, which callers must
+     * not modify.
+     */
+    public static byte[] toByteArray( TypedInput body ) throws IOException {
+        if ( body instanceof TypedByteArray ) {
+            return ( (TypedByteArray) body ).getBytes();
+        }
+        long length = body.length();
+        try ( InputStream in = body.in() ) {
+            if ( length < 0 || length > Integer.MAX_VALUE ) {
+                return IOUtils.toByteArray( in );
+            }
+            byte[] bytes = new byte[ (int) length ];
+            IOUtils.readFully( in, bytes );
+            return bytes;
+        }
+    }
+
+    /**
+     * Parses {@code body} with {@code mapper}, straight from the buffered bytes when they are available.
+     */
+    public static <T> T readValue( ObjectMapper mapper, TypedInput body, JavaType type ) throws IOException {
+        if ( body instanceof TypedByteArray ) {
+            return mapper.readValue( ( (TypedByteArray) body ).getBytes(), type );
+        }
+        try ( InputStream in = body.in() ) {
+            return mapper.readValue( in, type );
+        }
+    }
+}
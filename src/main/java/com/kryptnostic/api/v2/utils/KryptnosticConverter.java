@@ -1,10 +1,8 @@
 package com.kryptnostic.api.v2.utils;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.lang.reflect.Type;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +16,7 @@ import retrofit.mime.TypedOutput;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kryptnostic.api.v1.utils.TypedInputs;
 import com.kryptnostic.kodex.v1.serialization.jackson.KodexObjectMapperFactory;
 
 /**
@@ -41,18 +40,15 @@ public class KryptnosticConverter implements Converter {
     public Object fromBody( TypedInput body, Type type ) throws ConversionException {
         try {
             if ( StringUtils.equals( body.mimeType(), BYTE_MIME_TYPE ) ) {
-                return IOUtils.toByteArray( body.in() );
+                return TypedInputs.toByteArray( body );
             }
 
-            JavaType javaType = objectMapper.getTypeFactory().constructType( type );
-
-            InputStream in = body.in();
-
-            if ( in.available() == 0 ) {
+            if ( TypedInputs.isEmpty( body ) ) {
                 return null;
             }
 
-            return objectMapper.readValue( body.in(), javaType );
+            JavaType javaType = objectMapper.getTypeFactory().constructType( type );
+            return TypedInputs.readValue( objectMapper, body, javaType );
         } catch ( IOException e ) {
             logger.error( "Unable to deserialize object of type {} from body with mime-type {}.",
                     type,
@@ -0,0 +1,94 @@
+package com.kryptnostic.api.v2.utils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import retrofit.RequestInterceptor;
+import retrofit.converter.ConversionException;
+import retrofit.converter.Converter;
+import retrofit.mime.TypedByteArray;
+import retrofit.mime.TypedInput;
+import retrofit.mime.TypedOutput;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kryptnostic.api.v1.utils.TypedInputs;
+import com.kryptnostic.kodex.v1.serialization.jackson.KodexObjectMapperFactory;
+
+/**
+ * A {@link Converter} that prefers Jackson's binary Smile encoding over json. Responses are decoded according to their
+ * content type, so json responses always work. Request bodies are only sent as Smile once the server has answered with
+ * Smile, and go back to json if it stops doing so.
+ */
+public class SmileConverter implements Converter {
+    public static final String  SMILE_MIME_TYPE = "application/x-jackson-smile";
+    public static final String  ACCEPT          = SMILE_MIME_TYPE + ", application/json;q=0.9, */*;q=0.8";
+    private static final String JSON_MIME_TYPE  = "application/json; charset=UTF-8";
+    private static final String BYTE_MIME_TYPE  = "application/octet-stream";
+    private static final Logger logger          = LoggerFactory.getLogger( SmileConverter.class );
+    private final ObjectMapper  jsonMapper;
+    private final ObjectMapper  smileMapper;
+    private volatile boolean    serverSpeaksSmile;
+
+    public SmileConverter() {
+        this.jsonMapper = KodexObjectMapperFactory.getObjectMapper();
+        this.smileMapper = KodexObjectMapperFactory.getSmileMapper();
+    }
+
+    /**
+     * @return An interceptor that runs {@code delegate} and then asks the server for Smile responses.
+     */
+    public static RequestInterceptor acceptSmile( final RequestInterceptor delegate ) {
+        return new RequestInterceptor() {
+            @Override
+            public void intercept( RequestFacade request ) {
+                delegate.intercept( request );
+                request.addHeader( "Accept", ACCEPT );
+            }
+        };
+    }
+
+    @Override
+    public Object fromBody( TypedInput body, Type type ) throws ConversionException {
+        String mimeType = body.mimeType();
+        try {
+            if ( StringUtils.startsWith( mimeType, BYTE_MIME_TYPE ) ) {
+                return TypedInputs.toByteArray( body );
+            }
+            if ( TypedInputs.isEmpty( body ) ) {
+                return null;
+            }
+            boolean smile = StringUtils.startsWith( mimeType, SMILE_MIME_TYPE );
+            serverSpeaksSmile = smile;
+            ObjectMapper mapper = smile ? smileMapper : jsonMapper;
+            JavaType javaType = mapper.getTypeFactory().constructType( type );
+            return TypedInputs.readValue( mapper, body, javaType );
+        } catch ( IOException e ) {
+            logger.error( "Unable to deserialize object of type {} from body with mime-type {}.",
+                    type,
+                    mimeType,
+                    e );
+            throw new ConversionException( e );
+        }
+    }
+
+    @Override
+    public TypedOutput toBody( Object object ) {
+        if ( byte[].class.isAssignableFrom( object.getClass() ) ) {
+            return new TypedByteArray( BYTE_MIME_TYPE, (byte[]) object );
+        }
+        try {
+            if ( serverSpeaksSmile ) {
+                return new TypedByteArray( SMILE_MIME_TYPE, smileMapper.writeValueAsBytes( object ) );
+            }
+            return new TypedByteArray( JSON_MIME_TYPE, jsonMapper.writeValueAsBytes( object ) );
+        } catch ( JsonProcessingException e ) {
+            throw new AssertionError( e );
+        }
+    }
+}
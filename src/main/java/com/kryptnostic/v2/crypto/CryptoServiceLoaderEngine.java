@@ -0,0 +1,313 @@
+package com.kryptnostic.v2.crypto;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.kryptnostic.api.v1.metrics.KryptnosticMetrics;
+import com.kryptnostic.api.v1.utils.KryptnosticExecutors;
+import com.kryptnostic.api.v1.utils.SingleFlight;
+import com.kryptnostic.kodex.v1.crypto.ciphers.AesCryptoService;
+import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
+import com.kryptnostic.kodex.v1.crypto.ciphers.Cypher;
+import com.kryptnostic.kodex.v1.exceptions.types.SecurityConfigurationException;
+
+/**
+ * Caching, batching and coalescing core shared by every crypto service loader. How crypto services are kept on the
+ * server is left to a {@link KeyWrapStrategy}, so the loaders themselves only adapt this to their interface.
+ * <p>
+ * The cache tiers are per engine, not shared between loaders. Each engine has its own key cache, pending upload state
+ * and load counters. A connection only ever creates one loader, so a shared tier would have nothing to share with.
+ * What every engine in the JVM shares is the prefetch, unwrap and key upload thread pools and the
+ * {@link KryptnosticMetrics} counters.
+ *
+ * @param <K> Key that crypto services are stored under.
+ * @param <W> Wrapped form of a crypto service as returned by the server.
+ */
+public class CryptoServiceLoaderEngine<K, W> {
+    private static final Logger                  logger = LoggerFactory
+                                                                    .getLogger( CryptoServiceLoaderEngine.class );
+
+    public static final long                     DEFAULT_MAXIMUM_SIZE               = 1000;
+    public static final long                     DEFAULT_EXPIRE_AFTER_WRITE_MINUTES = 10;
+
+    private final KeyWrapStrategy<K, W>          strategy;
+    private final Cypher                         cypher;
+    private final LoadingCache<K, CryptoService> keyCache;
+    private final Optional<KeyUploadQueue<K>>    uploads;
+    private final ParallelKeyUnwrapper           unwrapper                          = new ParallelKeyUnwrapper();
+    private final SingleFlight<K, CryptoService> keyFlights                         = new SingleFlight<>();
+    private final Map<K, ListenableFuture<Void>> uncachedUploads                    = Maps.newConcurrentMap();
+
+    private final AtomicLong                     fetched                            = new AtomicLong();
+    private final AtomicLong                     bulkFetched                        = new AtomicLong();
+    private final AtomicLong                     created                            = new AtomicLong();
+
+    public CryptoServiceLoaderEngine( KeyWrapStrategy<K, W> strategy, Cypher cypher, boolean asyncKeyUpload ) {
+        this( strategy, cypher, asyncKeyUpload, DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_WRITE_MINUTES );
+    }
+
+    /**
+     * @param asyncKeyUpload If true, newly created crypto services are cached immediately and uploaded by a background
+     *            {@link KeyUploadQueue}. Use {@link #whenDurable(Object)} before relying on the key being present on
+     *            the server.
+     */
+    public CryptoServiceLoaderEngine(
+            final KeyWrapStrategy<K, W> strategy,
+            Cypher cypher,
+            boolean asyncKeyUpload,
+            long maximumSize,
+            long expireAfterWriteMinutes ) {
+        this.strategy = Preconditions.checkNotNull( strategy, "Key wrap strategy cannot be null." );
+        this.cypher = cypher;
+        if ( asyncKeyUpload ) {
+            this.uploads = Optional.of( new KeyUploadQueue<K>( new KeyUploadQueue.KeyUploader<K>() {
+                @Override
+                public void upload( K id, CryptoService service ) throws SecurityConfigurationException, IOException {
+                    strategy.store( id, service );
+                }
+            } ) );
+        } else {
+            this.uploads = Optional.absent();
+        }
+        this.keyCache = CacheBuilder.newBuilder().maximumSize( maximumSize )
+                .expireAfterWrite( expireAfterWriteMinutes, TimeUnit.MINUTES ).recordStats()
+                .build( new CacheLoader<K, CryptoService>() {
+                    @Override
+                    public Map<K, CryptoService> loadAll( Iterable<? extends K> keys ) throws IOException,
+                            SecurityConfigurationException {
+                        return CryptoServiceLoaderEngine.this.loadAll( keys );
+                    }
+
+                    @Override
+                    public CryptoService load( final K key ) throws ExecutionException {
+                        // Concurrent misses for a new object would otherwise each create a different crypto service.
+                        return keyFlights.execute( key, new Callable<CryptoService>() {
+                            @Override
+                            public CryptoService call() throws IOException, SecurityConfigurationException,
+                                    GeneralSecurityException {
+                                return fetchOrCreate( key );
+                            }
+                        } );
+                    }
+                } );
+    }
+
+    public Optional<CryptoService> get( K id ) throws ExecutionException {
+        if ( id == null ) {
+            return Optional.absent();
+        }
+        Stopwatch watch = Stopwatch.createStarted();
+        try {
+            CryptoService service = keyCache.get( id );
+            invalidateIfUploadFails( id );
+            return Optional.fromNullable( service );
+        } finally {
+            KryptnosticMetrics.recordPhase( KryptnosticMetrics.KEY_LOADING, watch );
+        }
+    }
+
+    /**
+     * Loads every crypto service in {@code ids} with as few round trips as possible. Crypto services the server
+     * doesn't have are left out of the result.
+     */
+    public Map<K, CryptoService> getAll( Set<K> ids ) throws ExecutionException {
+        Stopwatch watch = Stopwatch.createStarted();
+        Map<K, CryptoService> services;
+        try {
+            services = keyCache.getAll( ids );
+        } catch ( InvalidCacheLoadException e ) {
+            logger.warn( "Unable to bulk load all {} crypto services, returning those available.", ids.size() );
+            services = keyCache.getAllPresent( ids );
+        } finally {
+            KryptnosticMetrics.recordPhase( KryptnosticMetrics.KEY_LOADING, watch );
+        }
+        for ( K id : services.keySet() ) {
+            invalidateIfUploadFails( id );
+        }
+        return services;
+    }
+
+    /**
+     * Loads {@code ids} into the cache in the background.
+     */
+    public ListenableFuture<Map<K, CryptoService>> prefetch( Set<K> ids ) {
+        final Set<K> missing = ImmutableSet.copyOf( Sets.difference( ids, keyCache.getAllPresent( ids ).keySet() ) );
+        if ( missing.isEmpty() ) {
+            return Futures.<Map<K, CryptoService>> immediateFuture( ImmutableMap.<K, CryptoService> of() );
+        }
+        return PrefetchExecutorHolder.EXECUTOR.submit( new Callable<Map<K, CryptoService>>() {
+            @Override
+            public Map<K, CryptoService> call() throws ExecutionException {
+                return getAll( missing );
+            }
+        } );
+    }
+
+    public void put( K id, CryptoService service ) throws ExecutionException {
+        keyCache.put( id, service );
+        try {
+            if ( uploads.isPresent() ) {
+                invalidateOnFailure( id, uploads.get().enqueue( id, service ) );
+            } else {
+                strategy.store( id, service );
+            }
+        } catch ( SecurityConfigurationException | IOException e ) {
+            throw new ExecutionException( e );
+        }
+    }
+
+    /**
+     * @return A future that completes once the crypto service for {@code id} has been persisted to the server.
+     */
+    public ListenableFuture<Void> whenDurable( K id ) {
+        if ( uploads.isPresent() ) {
+            return uploads.get().whenDurable( id );
+        }
+        return Futures.immediateFuture( null );
+    }
+
+    public void clear() {
+        keyCache.invalidateAll();
+        keyCache.cleanUp();
+    }
+
+    public Cypher getCypher() {
+        return cypher;
+    }
+
+    public CacheStats getCacheStats() {
+        return keyCache.stats();
+    }
+
+    /**
+     * @return Number of crypto services fetched from the server one at a time.
+     */
+    public long getFetchedCount() {
+        return fetched.get();
+    }
+
+    /**
+     * @return Number of crypto services fetched from the server in bulk.
+     */
+    public long getBulkFetchedCount() {
+        return bulkFetched.get();
+    }
+
+    /**
+     * @return Number of new crypto services created because the server didn't have one.
+     */
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    private Map<K, CryptoService> loadAll( Iterable<? extends K> keys ) throws IOException,
+            SecurityConfigurationException {
+        Set<K> ids = Sets.newHashSet();
+        Map<K, ListenableFuture<CryptoService>> loading = Maps.newHashMap();
+        for ( K key : keys ) {
+            ListenableFuture<CryptoService> flight = keyFlights.getInFlight( key );
+            if ( flight == null ) {
+                ids.add( key );
+            } else {
+                loading.put( key, flight );
+            }
+        }
+
+        Map<K, CryptoService> services = Maps.newHashMap();
+        if ( !ids.isEmpty() ) {
+            Map<K, W> data = strategy.fetchAll( ids );
+            bulkFetched.addAndGet( data.size() );
+            // Missing keys are reported by the cache as an InvalidCacheLoadException.
+            services.putAll( unwrapper.unwrapAll( data, strategy ) );
+        }
+
+        // Share keys that single loads are already fetching, or creating, instead of racing them.
+        for ( Entry<K, ListenableFuture<CryptoService>> flight : loading.entrySet() ) {
+            try {
+                services.put( flight.getKey(), Uninterruptibles.getUninterruptibly( flight.getValue() ) );
+            } catch ( ExecutionException e ) {
+                logger.error( "Failed while waiting on crypto service for object id: {}", flight.getKey(), e );
+            }
+        }
+        return services;
+    }
+
+    /**
+     * Fetches the crypto service for {@code id}, creating and storing a new one if the server doesn't have one yet.
+     * Only called from within a {@link #keyFlights} call.
+     */
+    private CryptoService fetchOrCreate( K id ) throws IOException, SecurityConfigurationException,
+            GeneralSecurityException {
+        W crypto = strategy.fetch( id );
+        fetched.incrementAndGet();
+        if ( crypto != null ) {
+            return strategy.unwrap( crypto );
+        }
+
+        CryptoService service = new AesCryptoService( cypher );
+        created.incrementAndGet();
+        if ( uploads.isPresent() ) {
+            // The key isn't cached until the load returns, so invalidating it on failure has to wait until then.
+            uncachedUploads.put( id, uploads.get().enqueue( id, service ) );
+        } else {
+            strategy.store( id, service );
+        }
+        return service;
+    }
+
+    /**
+     * Called once {@code id} is cached, to evict it if it was created by a load and its upload fails.
+     */
+    private void invalidateIfUploadFails( K id ) {
+        ListenableFuture<Void> upload = uncachedUploads.remove( id );
+        if ( upload != null ) {
+            invalidateOnFailure( id, upload );
+        }
+    }
+
+    private void invalidateOnFailure( final K id, ListenableFuture<Void> upload ) {
+        Futures.addCallback( upload, new FutureCallback<Void>() {
+            @Override
+            public void onSuccess( Void result ) {}
+
+            @Override
+            public void onFailure( Throwable t ) {
+                // Never hand out a key that didn't make it to the server.
+                keyCache.invalidate( id );
+            }
+        } );
+    }
+
+    private static final class PrefetchExecutorHolder {
+        private static final ListeningExecutorService EXECUTOR = KryptnosticExecutors.newFixedThreadPool(
+                                                                       "key-prefetch",
+                                                                       2 );
+    }
+}
@@ -0,0 +1,14 @@
+package com.kryptnostic.v2.crypto;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.kryptnostic.v2.storage.models.VersionedObjectKey;
+
+/**
+ * A {@link CryptoServiceLoader} that may upload newly created crypto services in the background.
+ */
+public interface DurableCryptoServiceLoader extends CryptoServiceLoader {
+    /**
+     * @return A future that completes once the crypto service for {@code id} has been persisted to the server.
+     */
+    ListenableFuture<Void> whenDurable( VersionedObjectKey id );
+}
@@ -0,0 +1,188 @@
+package com.kryptnostic.v2.crypto;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+import com.kryptnostic.api.v1.utils.KryptnosticExecutors;
+import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
+import com.kryptnostic.kodex.v1.exceptions.types.SecurityConfigurationException;
+
+/**
+ * Background queue that wraps and uploads newly created object crypto services. Callers get a future per key that
+ * completes once the key is durable on the server, so object content can be gated on its own key instead of on the
+ * whole upload backlog. Uploads run on a pool shared by every queue, and batches are chained on it as they complete,
+ * so queues don't hold on to threads of their own.
+ */
+public class KeyUploadQueue<K> {
+    private static final Logger                            logger                 = LoggerFactory
+                                                                                              .getLogger(
+                                                                                                      KeyUploadQueue.class );
+    public static final int                                DEFAULT_BATCH_SIZE     = 64;
+    public static final int                                DEFAULT_UPLOAD_THREADS = 4;
+
+    private final BlockingQueue<PendingUpload<K>>          queue                  = new LinkedBlockingQueue<>();
+    private final ConcurrentMap<K, SettableFuture<Void>>   pending                = Maps.newConcurrentMap();
+    private final ConcurrentMap<K, ListenableFuture<Void>> failed                 = Maps.newConcurrentMap();
+    private final AtomicBoolean                            draining               = new AtomicBoolean();
+    private final KeyUploader<K>                           uploader;
+    private final int                                      batchSize;
+    private final ListeningExecutorService                 uploadExecutor;
+
+    /**
+     * Wraps and uploads a single crypto service. Implementations must be thread safe.
+     */
+    public interface KeyUploader<K> {
+        void upload( K id, CryptoService service ) throws SecurityConfigurationException,
+                IOException;
+    }
+
+    public KeyUploadQueue( KeyUploader<K> uploader ) {
+        this( uploader, DEFAULT_BATCH_SIZE, DefaultExecutorHolder.EXECUTOR );
+    }
+
+    public KeyUploadQueue( KeyUploader<K> uploader, int batchSize, ListeningExecutorService uploadExecutor ) {
+        Preconditions.checkArgument( batchSize > 0, "Batch size must be positive." );
+        this.uploader = Preconditions.checkNotNull( uploader, "Key uploader cannot be null." );
+        this.batchSize = batchSize;
+        this.uploadExecutor = Preconditions.checkNotNull( uploadExecutor, "Executor cannot be null." );
+    }
+
+    /**
+     * Queues a crypto service for upload. Enqueuing a key that is already pending returns the existing future, and
+     * enqueuing a key whose upload failed retries it.
+     *
+     * @return A future that completes once the key has been uploaded.
+     */
+    public ListenableFuture<Void> enqueue( K id, CryptoService service ) {
+        SettableFuture<Void> durable = SettableFuture.create();
+        SettableFuture<Void> existing = pending.putIfAbsent( id, durable );
+        if ( existing != null ) {
+            return existing;
+        }
+        failed.remove( id );
+        queue.add( new PendingUpload<K>( id, service, durable ) );
+        scheduleDrain();
+        return durable;
+    }
+
+    /**
+     * @return A future that completes when the key for {@code id} is durable. If its upload failed the future fails,
+     *         once, so that content is never stored under a key that isn't on the server. Keys that are neither pending
+     *         nor failed are considered durable.
+     */
+    public ListenableFuture<Void> whenDurable( K id ) {
+        SettableFuture<Void> durable = pending.get( id );
+        if ( durable != null ) {
+            return durable;
+        }
+        ListenableFuture<Void> failure = failed.remove( id );
+        if ( failure != null ) {
+            return failure;
+        }
+        return Futures.immediateFuture( null );
+    }
+
+    /**
+     * Blocks until every key queued before this call has been uploaded or has failed.
+     */
+    public void flush() throws InterruptedException {
+        try {
+            Futures.successfulAsList( ImmutableList.copyOf( pending.values() ) ).get();
+        } catch ( ExecutionException e ) {
+            // successfulAsList never fails.
+            throw new IllegalStateException( e );
+        }
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    private void scheduleDrain() {
+        if ( draining.compareAndSet( false, true ) ) {
+            drain();
+        }
+    }
+
+    /**
+     * Submits the next batch and schedules itself to run again once every upload in it has finished. Only one batch
+     * is in flight at a time so that a slow server applies back pressure to the queue.
+     */
+    private void drain() {
+        List<PendingUpload<K>> batch = Lists.newArrayListWithCapacity( batchSize );
+        queue.drainTo( batch, batchSize );
+        if ( batch.isEmpty() ) {
+            draining.set( false );
+            // A key enqueued after the queue was found empty, but before the flag was cleared, would be stranded.
+            if ( !queue.isEmpty() ) {
+                scheduleDrain();
+            }
+            return;
+        }
+
+        List<ListenableFuture<?>> uploads = Lists.newArrayListWithCapacity( batch.size() );
+        for ( final PendingUpload<K> upload : batch ) {
+            uploads.add( uploadExecutor.submit( new Runnable() {
+                @Override
+                public void run() {
+                    upload( upload );
+                }
+            } ) );
+        }
+        logger.trace( "[PROFILE] uploading batch of {} keys, {} pending", batch.size(), pending.size() );
+        Futures.successfulAsList( uploads ).addListener( new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, uploadExecutor );
+    }
+
+    private void upload( PendingUpload<K> upload ) {
+        try {
+            uploader.upload( upload.id, upload.service );
+            pending.remove( upload.id, upload.durable );
+            upload.durable.set( null );
+        } catch ( SecurityConfigurationException | IOException | RuntimeException e ) {
+            logger.error( "Failed to upload crypto service for object {}", upload.id, e );
+            upload.durable.setException( e );
+            // Recorded before leaving pending so that whenDurable can't find the key in neither.
+            failed.put( upload.id, upload.durable );
+            pending.remove( upload.id, upload.durable );
+        }
+    }
+
+    private static final class PendingUpload<K> {
+        private final K                    id;
+        private final CryptoService        service;
+        private final SettableFuture<Void> durable;
+
+        PendingUpload( K id, CryptoService service, SettableFuture<Void> durable ) {
+            this.id = id;
+            this.service = service;
+            this.durable = durable;
+        }
+    }
+
+    private static final class DefaultExecutorHolder {
+        private static final ListeningExecutorService EXECUTOR = KryptnosticExecutors.newFixedThreadPool(
+                                                                       "key-upload",
+                                                                       DEFAULT_UPLOAD_THREADS );
+    }
+}
@@ -0,0 +1,29 @@
+package com.kryptnostic.v2.crypto;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
+import com.kryptnostic.kodex.v1.exceptions.types.SecurityConfigurationException;
+
+/**
+ * Describes how object crypto services are kept on the server: how they are fetched, one at a time or in bulk, how
+ * they are unwrapped and how new ones are wrapped and stored. Implementations must be thread safe.
+ *
+ * @param <K> Key that crypto services are stored under.
+ * @param <W> Wrapped form of a crypto service as returned by the server.
+ */
+public interface KeyWrapStrategy<K, W> extends ParallelKeyUnwrapper.Unwrapper<W> {
+    /**
+     * @return The wrapped crypto service for {@code id} or null if the server doesn't have one.
+     */
+    W fetch( K id ) throws IOException;
+
+    /**
+     * @return The wrapped crypto services for those of {@code ids} that the server has.
+     */
+    Map<K, W> fetchAll( Set<K> ids ) throws IOException;
+
+    void store( K id, CryptoService service ) throws SecurityConfigurationException, IOException;
+}
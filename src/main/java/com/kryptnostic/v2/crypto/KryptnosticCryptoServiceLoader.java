@@ -1,153 +1,39 @@
 package com.kryptnostic.v2.crypto;
 
-import java.io.IOException;
-import java.security.InvalidAlgorithmParameterException;
-import java.security.NoSuchAlgorithmException;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
-import java.util.UUID;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import com.google.common.base.Optional;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import com.google.common.collect.Maps;
 import com.kryptnostic.api.v1.KryptnosticConnection;
-import com.kryptnostic.kodex.v1.crypto.ciphers.AesCryptoService;
-import com.kryptnostic.kodex.v1.crypto.ciphers.BlockCiphertext;
 import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
 import com.kryptnostic.kodex.v1.crypto.ciphers.Cypher;
-import com.kryptnostic.kodex.v1.exceptions.types.SecurityConfigurationException;
 import com.kryptnostic.v2.storage.api.KeyStorageApi;
 import com.kryptnostic.v2.storage.api.ObjectStorageApi;
 import com.kryptnostic.v2.storage.models.VersionedObjectKey;
-import com.kryptnostic.v2.storage.models.VersionedObjectKeySet;
 
 /**
- * Provider class for {@link CryptoService} objects used for encrypting and decrypting objects.
+ * Provider class for {@link CryptoService} objects used for encrypting and decrypting objects. Crypto services are
+ * wrapped with the user's RSA key.
  *
  * @author Matthew Tamayo-Rios &lt;matthew@kryptnostic.com&gt;
  *
  */
-public class KryptnosticCryptoServiceLoader implements CryptoServiceLoader {
-    private static final Logger                                   logger = LoggerFactory
-                                                                                 .getLogger( KryptnosticCryptoServiceLoader.class );
-
-    private final LoadingCache<VersionedObjectKey, CryptoService> keyCache;
-    private KeyStorageApi                                         keyStorageApi;
-    private ObjectStorageApi                                      objectStorageApi;
-    private KryptnosticConnection                                 connection;
-    private Cypher                                                cypher;
-
+public class KryptnosticCryptoServiceLoader extends VersionedCryptoServiceLoader {
     public KryptnosticCryptoServiceLoader(
             final KryptnosticConnection connection,
             final KeyStorageApi keyApi,
             ObjectStorageApi objectStorageApi,
             Cypher cypher ) {
-        this.keyStorageApi = keyApi;
-        this.objectStorageApi = objectStorageApi;
-        this.connection = connection;
-        this.cypher = cypher;
-        keyCache = CacheBuilder.newBuilder().maximumSize( 1000 ).expireAfterWrite( 10, TimeUnit.MINUTES )
-                // TODO: make this a separate class
-                .build( new CacheLoader<VersionedObjectKey, CryptoService>() {
-                    @Override
-                    public Map<VersionedObjectKey, CryptoService> loadAll( Iterable<? extends VersionedObjectKey> keys )
-                            throws IOException,
-                            SecurityConfigurationException {
-                        VersionedObjectKeySet ids = new VersionedObjectKeySet();
-
-                        for ( VersionedObjectKey key : keys ) {
-                            ids.add( key );
-                        }
-
-                        Map<VersionedObjectKey, BlockCiphertext> data = keyApi.getAesEncryptedCryptoServices( ids );
-                        if ( data.size() != ids.size() ) {
-                            throw new InvalidCacheLoadException( "Unable to retrieve all keys." );
-                        }
-                        Map<VersionedObjectKey, CryptoService> processedData = Maps.newHashMap();
-
-                        for ( Entry<VersionedObjectKey, BlockCiphertext> entry : data.entrySet() ) {
-                            BlockCiphertext crypto = entry.getValue();
-                            if ( crypto != null ) {
-                                CryptoService service = connection.newCryptoManager().getRsaCryptoService().decrypt(
-                                        crypto.getContents(), // TODO: is this chrrect????
-                                        AesCryptoService.class );
-                                processedData.put( entry.getKey(), service );
-                            }
-                        }
-                        return processedData;
-                    }
-
-                    @Override
-                    public CryptoService load( VersionedObjectKey key ) throws IOException,
-                            SecurityConfigurationException {
-                        BlockCiphertext crypto = keyApi.getAesEncryptedObjectCryptoService( key.getObjectId(),
-                                key.getVersion() );
-                        if ( crypto == null ) {
-                            try {
-                                CryptoService cs = new AesCryptoService( KryptnosticCryptoServiceLoader.this.cypher );
-                                put( key, cs );
-                                return cs;
-                            } catch (
-                                    NoSuchAlgorithmException
-                                    | InvalidAlgorithmParameterException
-                                    | ExecutionException e ) {
-                                logger.error( "Failed while trying to create new crypto service for object id: {} ",
-                                        key, e );
-                            }
-                        }
-                        return connection
-                                .newCryptoManager()
-                                .getRsaCryptoService()
-                                .decrypt( crypto.getContents(), AesCryptoService.class );// TODO isthis correct???
-                    }
-                } );
-    }
-
-    @Override
-    public Optional<CryptoService> get( VersionedObjectKey id ) throws ExecutionException {
-        if ( id == null ) {
-            return Optional.absent();
-        }
-        return Optional.fromNullable( keyCache.get( id ) );
-    }
-
-    @Override
-    public void put( VersionedObjectKey id, CryptoService service ) throws ExecutionException {
-        keyCache.put( id, service );
-        try {
-            byte[] cs = connection.newCryptoManager().getRsaCryptoService().encrypt( service );
-            keyStorageApi.setObjectCryptoService( id.getObjectId(), cs ); // TODO: is this correct???
-        } catch ( SecurityConfigurationException | IOException e ) {
-            throw new ExecutionException( e );
-        }
-    }
-
-    @Override
-    public Map<VersionedObjectKey, CryptoService> getAll( Set<VersionedObjectKey> ids ) throws ExecutionException {
-        return keyCache.getAllPresent( ids );
+        this( connection, keyApi, objectStorageApi, cypher, false );
     }
 
-    @Override
-    public void clear() {
-        keyCache.invalidateAll();
-        keyCache.cleanUp();
-    }
-
-    @Override
-    public Cypher getCypher() {
-        return cypher;
-    }
-
-    @Override
-    public Optional<CryptoService> getLatest( UUID id ) throws ExecutionException {
-        return get( VersionedObjectKey.fromObjectMetadata( objectStorageApi.getObjectMetadata( id ) ) );
+    /**
+     * @param asyncKeyUpload If true, newly created crypto services are cached immediately and uploaded by a background
+     *            {@link KeyUploadQueue}. Use {@link #whenDurable(VersionedObjectKey)} before relying on the key being
+     *            present on the server.
+     */
+    public KryptnosticCryptoServiceLoader(
+            final KryptnosticConnection connection,
+            final KeyStorageApi keyApi,
+            ObjectStorageApi objectStorageApi,
+            Cypher cypher,
+            boolean asyncKeyUpload ) {
+        super( new RsaKeyWrapStrategy( connection, keyApi ), objectStorageApi, cypher, asyncKeyUpload );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+package com.kryptnostic.v2.crypto;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import com.kryptnostic.api.v1.KryptnosticConnection;
+import com.kryptnostic.kodex.v1.crypto.ciphers.AesCryptoService;
+import com.kryptnostic.kodex.v1.crypto.ciphers.BlockCiphertext;
+import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
+import com.kryptnostic.kodex.v1.exceptions.types.SecurityConfigurationException;
+import com.kryptnostic.kodex.v1.marshalling.DeflatingJacksonMarshaller;
+import com.kryptnostic.v2.storage.api.KeyStorageApi;
+import com.kryptnostic.v2.storage.models.VersionedObjectKey;
+import com.kryptnostic.v2.storage.models.VersionedObjectKeySet;
+
+/**
+ * Versioned object crypto services wrapped with the user's master AES crypto service.
+ */
+public class MasterAesKeyWrapStrategy implements KeyWrapStrategy<VersionedObjectKey, BlockCiphertext> {
+    private static final DeflatingJacksonMarshaller marshaller = new DeflatingJacksonMarshaller();
+    private final KryptnosticConnection             connection;
+    private final KeyStorageApi                     keyStorageApi;
+
+    public MasterAesKeyWrapStrategy( KryptnosticConnection connection, KeyStorageApi keyStorageApi ) {
+        this.connection = connection;
+        this.keyStorageApi = keyStorageApi;
+    }
+
+    @Override
+    public BlockCiphertext fetch( VersionedObjectKey id ) {
+        return keyStorageApi.getAesEncryptedObjectCryptoService( id.getObjectId(), id.getVersion() );
+    }
+
+    @Override
+    public Map<VersionedObjectKey, BlockCiphertext> fetchAll( Set<VersionedObjectKey> ids ) {
+        VersionedObjectKeySet keys = new VersionedObjectKeySet();
+        for ( VersionedObjectKey id : ids ) {
+            keys.add( id );
+        }
+        return keyStorageApi.getAesEncryptedCryptoServices( keys );
+    }
+
+    @Override
+    public CryptoService unwrap( BlockCiphertext crypto ) throws SecurityConfigurationException, IOException {
+        byte[] cryptoServiceBytes = connection.getMasterCryptoService().decryptBytes( crypto );
+        return marshaller.fromBytes( cryptoServiceBytes, AesCryptoService.class );
+    }
+
+    @Override
+    public void store( VersionedObjectKey id, CryptoService service ) throws SecurityConfigurationException,
+            IOException {
+        BlockCiphertext cs = connection.getMasterCryptoService().encrypt( marshaller.toBytes( service ) );
+        keyStorageApi.setAesEncryptedObjectCryptoService( id.getObjectId(), id.getVersion(), cs );
+    }
+}
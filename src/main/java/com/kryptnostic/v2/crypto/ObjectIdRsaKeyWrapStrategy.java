@@ -0,0 +1,58 @@
+package com.kryptnostic.v2.crypto;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
+
+import com.google.common.collect.Maps;
+import com.kryptnostic.api.v1.KryptnosticConnection;
+import com.kryptnostic.kodex.v1.crypto.ciphers.AesCryptoService;
+import com.kryptnostic.kodex.v1.crypto.ciphers.BlockCiphertext;
+import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
+import com.kryptnostic.kodex.v1.exceptions.types.SecurityConfigurationException;
+import com.kryptnostic.v2.storage.api.KeyStorageApi;
+import com.kryptnostic.v2.storage.models.VersionedObjectKey;
+
+/**
+ * Unversioned object crypto services, keyed by object id and wrapped with the user's RSA key.
+ */
+public class ObjectIdRsaKeyWrapStrategy implements KeyWrapStrategy<UUID, byte[]> {
+    private final KryptnosticConnection connection;
+    private final KeyStorageApi         keyStorageApi;
+
+    public ObjectIdRsaKeyWrapStrategy( KryptnosticConnection connection, KeyStorageApi keyStorageApi ) {
+        this.connection = connection;
+        this.keyStorageApi = keyStorageApi;
+    }
+
+    @Override
+    public byte[] fetch( UUID id ) {
+        return keyStorageApi.getObjectCryptoService( id );
+    }
+
+    @Override
+    public Map<UUID, byte[]> fetchAll( Set<UUID> ids ) {
+        Map<VersionedObjectKey, BlockCiphertext> data = keyStorageApi.getAesEncryptedCryptoServices( ids );
+        Map<UUID, byte[]> wrapped = Maps.newHashMapWithExpectedSize( data.size() );
+        for ( Entry<VersionedObjectKey, BlockCiphertext> entry : data.entrySet() ) {
+            BlockCiphertext crypto = entry.getValue();
+            if ( crypto != null ) {
+                wrapped.put( entry.getKey().getObjectId(), crypto.getContents() ); // TODO: Is this correct???
+            }
+        }
+        return wrapped;
+    }
+
+    @Override
+    public CryptoService unwrap( byte[] crypto ) throws SecurityConfigurationException, IOException {
+        return connection.newCryptoManager().getRsaCryptoService().decrypt( crypto, AesCryptoService.class );
+    }
+
+    @Override
+    public void store( UUID id, CryptoService service ) throws SecurityConfigurationException, IOException {
+        byte[] cs = connection.newCryptoManager().getRsaCryptoService().encrypt( service );
+        keyStorageApi.setObjectCryptoService( id, cs );
+    }
+}
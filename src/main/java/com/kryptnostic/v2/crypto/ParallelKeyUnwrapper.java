@@ -0,0 +1,106 @@
+package com.kryptnostic.v2.crypto;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.kryptnostic.api.v1.utils.KryptnosticExecutors;
+import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
+import com.kryptnostic.kodex.v1.exceptions.types.SecurityConfigurationException;
+
+/**
+ * Unwraps batches of wrapped crypto services on a bounded executor. Small batches are unwrapped on the calling thread
+ * since the hand-off would cost more than the decryption.
+ */
+public class ParallelKeyUnwrapper {
+    public static final int                DEFAULT_THREADS    = Runtime.getRuntime().availableProcessors();
+    public static final int                MIN_PARALLEL_BATCH = 16;
+
+    private final ListeningExecutorService executor;
+    private final int                      parallelism;
+
+    /**
+     * Decrypts and deserializes a single wrapped crypto service. Implementations must be thread safe.
+     */
+    public interface Unwrapper<W> {
+        CryptoService unwrap( W wrapped ) throws SecurityConfigurationException, IOException;
+    }
+
+    public ParallelKeyUnwrapper() {
+        this( DefaultExecutorHolder.EXECUTOR, DEFAULT_THREADS );
+    }
+
+    public ParallelKeyUnwrapper( ListeningExecutorService executor, int parallelism ) {
+        Preconditions.checkArgument( parallelism > 0, "Parallelism must be positive." );
+        this.executor = Preconditions.checkNotNull( executor, "Executor cannot be null." );
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Unwraps every non-null value in {@code wrapped}. Null values are skipped.
+     */
+    public <K, W> Map<K, CryptoService> unwrapAll( Map<K, W> wrapped, final Unwrapper<W> unwrapper )
+            throws SecurityConfigurationException, IOException {
+        List<Entry<K, W>> entries = ImmutableList.copyOf( wrapped.entrySet() );
+        if ( entries.size() < MIN_PARALLEL_BATCH ) {
+            return unwrapSlice( entries, unwrapper );
+        }
+
+        int sliceSize = ( entries.size() + parallelism - 1 ) / parallelism;
+        List<ListenableFuture<Map<K, CryptoService>>> slices = Lists.newArrayListWithCapacity( parallelism );
+        for ( final List<Entry<K, W>> slice : Lists.partition( entries, sliceSize ) ) {
+            slices.add( executor.submit( new Callable<Map<K, CryptoService>>() {
+                @Override
+                public Map<K, CryptoService> call() throws Exception {
+                    return unwrapSlice( slice, unwrapper );
+                }
+            } ) );
+        }
+
+        Map<K, CryptoService> unwrapped = Maps.newHashMapWithExpectedSize( entries.size() );
+        try {
+            for ( Map<K, CryptoService> slice : Futures.allAsList( slices ).get() ) {
+                unwrapped.putAll( slice );
+            }
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IOException( e );
+        } catch ( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            Throwables.propagateIfInstanceOf( cause, SecurityConfigurationException.class );
+            Throwables.propagateIfInstanceOf( cause, IOException.class );
+            throw Throwables.propagate( cause );
+        }
+        return unwrapped;
+    }
+
+    private static <K, W> Map<K, CryptoService> unwrapSlice( Iterable<Entry<K, W>> slice, Unwrapper<W> unwrapper )
+            throws SecurityConfigurationException, IOException {
+        Map<K, CryptoService> unwrapped = Maps.newHashMapWithExpectedSize( Iterables.size( slice ) );
+        for ( Entry<K, W> entry : slice ) {
+            W crypto = entry.getValue();
+            if ( crypto != null ) {
+                unwrapped.put( entry.getKey(), unwrapper.unwrap( crypto ) );
+            }
+        }
+        return unwrapped;
+    }
+
+    private static final class DefaultExecutorHolder {
+        private static final ListeningExecutorService EXECUTOR = KryptnosticExecutors.newFixedThreadPool(
+                                                                       "key-unwrap",
+                                                                       DEFAULT_THREADS );
+    }
+}
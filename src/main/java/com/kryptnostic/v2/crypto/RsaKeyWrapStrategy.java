@@ -0,0 +1,56 @@
+package com.kryptnostic.v2.crypto;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import com.kryptnostic.api.v1.KryptnosticConnection;
+import com.kryptnostic.kodex.v1.crypto.ciphers.AesCryptoService;
+import com.kryptnostic.kodex.v1.crypto.ciphers.BlockCiphertext;
+import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
+import com.kryptnostic.kodex.v1.exceptions.types.SecurityConfigurationException;
+import com.kryptnostic.v2.storage.api.KeyStorageApi;
+import com.kryptnostic.v2.storage.models.VersionedObjectKey;
+import com.kryptnostic.v2.storage.models.VersionedObjectKeySet;
+
+/**
+ * Versioned object crypto services wrapped with the user's RSA key.
+ */
+public class RsaKeyWrapStrategy implements KeyWrapStrategy<VersionedObjectKey, BlockCiphertext> {
+    private final KryptnosticConnection connection;
+    private final KeyStorageApi         keyStorageApi;
+
+    public RsaKeyWrapStrategy( KryptnosticConnection connection, KeyStorageApi keyStorageApi ) {
+        this.connection = connection;
+        this.keyStorageApi = keyStorageApi;
+    }
+
+    @Override
+    public BlockCiphertext fetch( VersionedObjectKey id ) {
+        return keyStorageApi.getAesEncryptedObjectCryptoService( id.getObjectId(), id.getVersion() );
+    }
+
+    @Override
+    public Map<VersionedObjectKey, BlockCiphertext> fetchAll( Set<VersionedObjectKey> ids ) {
+        VersionedObjectKeySet keys = new VersionedObjectKeySet();
+        for ( VersionedObjectKey id : ids ) {
+            keys.add( id );
+        }
+        return keyStorageApi.getAesEncryptedCryptoServices( keys );
+    }
+
+    @Override
+    public CryptoService unwrap( BlockCiphertext crypto ) throws SecurityConfigurationException, IOException {
+        // The RSA crypto service is fetched per call since it isn't known to be safe to share across threads.
+        return connection.newCryptoManager().getRsaCryptoService().decrypt(
+                crypto.getContents(), // TODO: is this correct???
+                AesCryptoService.class );
+    }
+
+    @Override
+    public void store( VersionedObjectKey id, CryptoService service ) throws SecurityConfigurationException,
+            IOException {
+        byte[] cs = connection.newCryptoManager().getRsaCryptoService().encrypt( service );
+        keyStorageApi.setObjectCryptoService( id.getObjectId(), cs ); // TODO: is this correct???
+    }
+}
@@ -0,0 +1,84 @@
+package com.kryptnostic.v2.crypto;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.kryptnostic.api.v1.utils.SingleFlight;
+import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
+import com.kryptnostic.kodex.v1.crypto.ciphers.Cypher;
+import com.kryptnostic.v2.storage.api.ObjectStorageApi;
+import com.kryptnostic.v2.storage.models.VersionedObjectKey;
+
+/**
+ * {@link CryptoServiceLoader} for versioned objects backed by a {@link CryptoServiceLoaderEngine}.
+ */
+public class VersionedCryptoServiceLoader implements DurableCryptoServiceLoader {
+    private final CryptoServiceLoaderEngine<VersionedObjectKey, ?> engine;
+    private final ObjectStorageApi                                 objectStorageApi;
+    private final SingleFlight<UUID, VersionedObjectKey>           latestFlights = new SingleFlight<>();
+
+    public <W> VersionedCryptoServiceLoader(
+            KeyWrapStrategy<VersionedObjectKey, W> strategy,
+            ObjectStorageApi objectStorageApi,
+            Cypher cypher,
+            boolean asyncKeyUpload ) {
+        this( new CryptoServiceLoaderEngine<VersionedObjectKey, W>( strategy, cypher, asyncKeyUpload ),
+                objectStorageApi );
+    }
+
+    public VersionedCryptoServiceLoader(
+            CryptoServiceLoaderEngine<VersionedObjectKey, ?> engine,
+            ObjectStorageApi objectStorageApi ) {
+        this.engine = engine;
+        this.objectStorageApi = objectStorageApi;
+    }
+
+    @Override
+    public Optional<CryptoService> get( VersionedObjectKey id ) throws ExecutionException {
+        return engine.get( id );
+    }
+
+    @Override
+    public void put( VersionedObjectKey id, CryptoService service ) throws ExecutionException {
+        engine.put( id, service );
+    }
+
+    @Override
+    public ListenableFuture<Void> whenDurable( VersionedObjectKey id ) {
+        return engine.whenDurable( id );
+    }
+
+    @Override
+    public Map<VersionedObjectKey, CryptoService> getAll( Set<VersionedObjectKey> ids ) throws ExecutionException {
+        return engine.getAll( ids );
+    }
+
+    @Override
+    public void clear() {
+        engine.clear();
+    }
+
+    @Override
+    public Cypher getCypher() {
+        return engine.getCypher();
+    }
+
+    @Override
+    public Optional<CryptoService> getLatest( final UUID id ) throws ExecutionException {
+        return get( latestFlights.execute( id, new Callable<VersionedObjectKey>() {
+            @Override
+            public VersionedObjectKey call() {
+                return objectStorageApi.getLatestVersionedObjectKey( id );
+            }
+        } ) );
+    }
+
+    public CryptoServiceLoaderEngine<VersionedObjectKey, ?> getEngine() {
+        return engine;
+    }
+}
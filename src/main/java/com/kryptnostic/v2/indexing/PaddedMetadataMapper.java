@@ -20,9 +20,12 @@ import com.kryptnostic.v2.indexing.metadata.Metadata;
 import com.kryptnostic.v2.indexing.metadata.MetadataMapper;
 
 public class PaddedMetadataMapper implements MetadataMapper {
+    /**
+     * Terms no longer than this are not indexed.
+     */
+    public static final int                MINIMUM_TOKEN_LENGTH = 1;
     private static final Random            r                    = new SecureRandom();
     private static final Logger            loggger              = LoggerFactory.getLogger( PaddedMetadataMapper.class );
-    private static final int               MINIMUM_TOKEN_LENGTH = 1;
 
     private final KryptnosticCryptoManager cryptoManager;
 
@@ -64,8 +67,9 @@ public class PaddedMetadataMapper implements MetadataMapper {
                         .asBytes();
 
                 List<Integer> locationList = locations.get( i );
+                // Padding is always negative, so readers can tell it apart from real locations.
                 while ( locationList.size() < bucketSize ) {
-                    locationList.add( r.nextInt() );
+                    locationList.add( -1 - r.nextInt( Integer.MAX_VALUE ) );
                 }
 
                 Metadata balancedMetadatum = new Metadata(
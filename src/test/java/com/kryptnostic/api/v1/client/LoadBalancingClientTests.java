@@ -0,0 +1,233 @@
+package com.kryptnostic.api.v1.client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import retrofit.client.Client;
+import retrofit.client.Header;
+import retrofit.client.Request;
+import retrofit.client.Response;
+
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Sets;
+import com.kryptnostic.api.v1.client.LoadBalancingClient.Strategy;
+
+public class LoadBalancingClientTests {
+    private static final String       PRIMARY   = "http://primary/rest";
+    private static final String       SECONDARY = "http://secondary/rest";
+    private static final List<String> ENDPOINTS = ImmutableList.of( PRIMARY, SECONDARY );
+
+    @Test
+    public void testRewritesRequestsToSelectedEndpoint() throws IOException {
+        StubClient client = new StubClient();
+        LoadBalancingClient balancer = new LoadBalancingClient(
+                PRIMARY,
+                ENDPOINTS,
+                Strategy.LEAST_OUTSTANDING,
+                client );
+
+        for ( int i = 0; i < 4; ++i ) {
+            balancer.execute( request( PRIMARY + "/object/1" ) );
+        }
+
+        Assert.assertEquals( 2, client.urls.count( PRIMARY + "/object/1" ) );
+        Assert.assertEquals( 2, client.urls.count( SECONDARY + "/object/1" ) );
+    }
+
+    @Test
+    public void testDuplicateEndpointsAreIgnored() throws IOException {
+        StubClient client = new StubClient();
+        LoadBalancingClient balancer = new LoadBalancingClient(
+                PRIMARY,
+                ImmutableList.of( PRIMARY, SECONDARY, PRIMARY ),
+                Strategy.LEAST_OUTSTANDING,
+                client );
+
+        execute( balancer, 4 );
+
+        Assert.assertEquals( 2, client.urls.count( PRIMARY ) );
+        Assert.assertEquals( 2, client.urls.count( SECONDARY ) );
+    }
+
+    @Test
+    public void testOtherUrlsArePassedThrough() throws IOException {
+        StubClient client = new StubClient();
+        LoadBalancingClient balancer = new LoadBalancingClient(
+                PRIMARY,
+                ENDPOINTS,
+                Strategy.LEAST_OUTSTANDING,
+                client );
+
+        balancer.execute( request( "http://elsewhere/rest/object" ) );
+
+        Assert.assertEquals( 1, client.urls.count( "http://elsewhere/rest/object" ) );
+    }
+
+    @Test
+    public void testPrefersFasterEndpoint() throws IOException {
+        StubClient client = new StubClient();
+        client.delayMillis.put( PRIMARY, 20L );
+        LoadBalancingClient balancer = new LoadBalancingClient( PRIMARY, ENDPOINTS, Strategy.LATENCY_AWARE, client );
+
+        for ( int i = 0; i < 10; ++i ) {
+            balancer.execute( request( PRIMARY ) );
+        }
+
+        // Each endpoint is tried once before latencies are known.
+        Assert.assertEquals( 1, client.urls.count( PRIMARY ) );
+        Assert.assertEquals( 9, client.urls.count( SECONDARY ) );
+    }
+
+    @Test
+    public void testEjectsFailingEndpoint() throws IOException {
+        StubClient client = new StubClient();
+        client.failing.add( SECONDARY );
+        LoadBalancingClient balancer = new LoadBalancingClient(
+                PRIMARY,
+                ENDPOINTS,
+                Strategy.LEAST_OUTSTANDING,
+                client,
+                2,
+                TimeUnit.MINUTES.toMillis( 1 ) );
+
+        int failures = execute( balancer, 10 );
+
+        Assert.assertEquals( 2, failures );
+        Assert.assertEquals( 2, client.urls.count( SECONDARY ) );
+        Assert.assertEquals( 8, client.urls.count( PRIMARY ) );
+    }
+
+    @Test
+    public void testEjectsEndpointAnsweringWithGatewayErrors() throws IOException {
+        StubClient client = new StubClient();
+        client.statuses.put( SECONDARY, 503 );
+        LoadBalancingClient balancer = new LoadBalancingClient(
+                PRIMARY,
+                ENDPOINTS,
+                Strategy.LEAST_OUTSTANDING,
+                client,
+                2,
+                TimeUnit.MINUTES.toMillis( 1 ) );
+
+        execute( balancer, 10 );
+
+        Assert.assertEquals( 2, client.urls.count( SECONDARY ) );
+    }
+
+    @Test
+    public void testApplicationErrorsDoNotEject() throws IOException {
+        StubClient client = new StubClient();
+        client.statuses.put( SECONDARY, 500 );
+        LoadBalancingClient balancer = new LoadBalancingClient(
+                PRIMARY,
+                ENDPOINTS,
+                Strategy.LEAST_OUTSTANDING,
+                client,
+                2,
+                TimeUnit.MINUTES.toMillis( 1 ) );
+
+        execute( balancer, 10 );
+
+        Assert.assertEquals( 5, client.urls.count( SECONDARY ) );
+    }
+
+    @Test
+    public void testEjectedEndpointComesBack() throws Exception {
+        StubClient client = new StubClient();
+        client.failing.add( SECONDARY );
+        LoadBalancingClient balancer = new LoadBalancingClient(
+                PRIMARY,
+                ENDPOINTS,
+                Strategy.LEAST_OUTSTANDING,
+                client,
+                1,
+                50 );
+
+        execute( balancer, 4 );
+        Assert.assertEquals( 1, client.urls.count( SECONDARY ) );
+
+        client.failing.remove( SECONDARY );
+        Thread.sleep( 100 );
+        execute( balancer, 4 );
+        Assert.assertEquals( 3, client.urls.count( SECONDARY ) );
+    }
+
+    @Test
+    public void testUsesEndpointDueBackSoonestWhenAllAreEjected() throws Exception {
+        StubClient client = new StubClient();
+        client.failing.add( PRIMARY );
+        client.failing.add( SECONDARY );
+        LoadBalancingClient balancer = new LoadBalancingClient(
+                PRIMARY,
+                ENDPOINTS,
+                Strategy.LEAST_OUTSTANDING,
+                client,
+                1,
+                TimeUnit.MINUTES.toMillis( 1 ) );
+
+        Assert.assertEquals( 3, execute( balancer, 3 ) );
+        Assert.assertNotEquals( client.endpoints.get( 0 ), client.endpoints.get( 1 ) );
+        Assert.assertEquals( client.endpoints.get( 0 ), client.endpoints.get( 2 ) );
+    }
+
+    /**
+     * @return The number of requests that failed with an {@link IOException}.
+     */
+    private static int execute( LoadBalancingClient balancer, int requests ) {
+        int failures = 0;
+        for ( int i = 0; i < requests; ++i ) {
+            try {
+                balancer.execute( request( PRIMARY ) );
+            } catch ( IOException e ) {
+                ++failures;
+            }
+        }
+        return failures;
+    }
+
+    private static Request request( String url ) {
+        return new Request( "GET", url, ImmutableList.<Header> of(), null );
+    }
+
+    /**
+     * Records the url of every request and answers with 200 unless the endpoint is configured otherwise.
+     */
+    private static final class StubClient implements Client {
+        private final Multiset<String>     urls        = ConcurrentHashMultiset.create();
+        private final Set<String>          failing     = Sets.newConcurrentHashSet();
+        private final Map<String, Integer> statuses    = Maps.newConcurrentMap();
+        private final Map<String, Long>    delayMillis = Maps.newConcurrentMap();
+        private final List<String>         endpoints   = Collections.synchronizedList( new ArrayList<String>() );
+
+        @Override
+        public Response execute( Request request ) throws IOException {
+            String url = request.getUrl();
+            String endpoint = url.startsWith( PRIMARY ) ? PRIMARY : url.startsWith( SECONDARY ) ? SECONDARY : url;
+            urls.add( url );
+            endpoints.add( endpoint );
+            if ( delayMillis.containsKey( endpoint ) ) {
+                try {
+                    Thread.sleep( delayMillis.get( endpoint ) );
+                } catch ( InterruptedException e ) {
+                    throw new IOException( e );
+                }
+            }
+            if ( failing.contains( endpoint ) ) {
+                throw new IOException( "Connection refused." );
+            }
+            Integer status = statuses.get( endpoint );
+            return new Response( url, status == null ? 200 : status, "", ImmutableList.<Header> of(), null );
+        }
+    }
+}
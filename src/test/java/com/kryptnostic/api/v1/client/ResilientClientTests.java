@@ -0,0 +1,150 @@
+package com.kryptnostic.api.v1.client;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import retrofit.client.Client;
+import retrofit.client.Header;
+import retrofit.client.Request;
+import retrofit.client.Response;
+
+import com.google.common.collect.ImmutableList;
+
+public class ResilientClientTests {
+    private static final String URL = "http://localhost/rest/object";
+
+    @After
+    public void restoreDefaults() {
+        KryptnosticRestAdapter.configureResilience( ResilienceConfiguration.defaults() );
+    }
+
+    @Test
+    public void testRetriesTransientFailures() throws IOException {
+        configure( ResilienceConfiguration.builder().noHedging() );
+        StubClient client = new StubClient( fail(), respond( 503, 0 ), respond( 200, 0 ) );
+
+        Assert.assertEquals( 200, new ResilientClient( client ).execute( request( "GET" ) ).getStatus() );
+        Assert.assertEquals( 3, client.getCalls() );
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() throws IOException {
+        configure( ResilienceConfiguration.builder().noHedging() );
+        StubClient client = new StubClient( respond( 503, 0 ) );
+        Assert.assertEquals( 503, new ResilientClient( client ).execute( request( "GET" ) ).getStatus() );
+        Assert.assertEquals( ResilienceConfiguration.MAX_ATTEMPTS_DEFAULT, client.getCalls() );
+
+        client = new StubClient( fail() );
+        try {
+            new ResilientClient( client ).execute( request( "GET" ) );
+            Assert.fail( "Expected the last failure to be thrown." );
+        } catch ( IOException e ) {
+            Assert.assertEquals( ResilienceConfiguration.MAX_ATTEMPTS_DEFAULT, client.getCalls() );
+        }
+    }
+
+    @Test
+    public void testNonIdempotentRequestsArePassedThrough() throws IOException {
+        configure( ResilienceConfiguration.builder().hedgeAfter( 1, TimeUnit.MILLISECONDS ) );
+        StubClient client = new StubClient( respond( 503, 50 ) );
+
+        Assert.assertEquals( 503, new ResilientClient( client ).execute( request( "POST" ) ).getStatus() );
+        Assert.assertEquals( 1, client.getCalls() );
+    }
+
+    @Test
+    public void testHedgeReplacesFailedPrimary() throws IOException {
+        configure( ResilienceConfiguration.builder().noRetries().hedgeAfter( 10, TimeUnit.MILLISECONDS ) );
+        StubClient client = new StubClient( fail( 200 ), respond( 200, 0 ) );
+
+        Assert.assertEquals( 200, new ResilientClient( client ).execute( request( "GET" ) ).getStatus() );
+        Assert.assertEquals( 2, client.getCalls() );
+    }
+
+    @Test
+    public void testHedgeDoesNotReplaceSuccessfulPrimary() throws IOException {
+        configure( ResilienceConfiguration.builder().noRetries().hedgeAfter( 10, TimeUnit.MILLISECONDS ) );
+        StubClient client = new StubClient( respond( 200, 200 ), respond( 204, 0 ) );
+
+        Assert.assertEquals( 200, new ResilientClient( client ).execute( request( "GET" ) ).getStatus() );
+        Assert.assertEquals( 2, client.getCalls() );
+    }
+
+    @Test
+    public void testUnneededHedgeIsNeverSent() throws Exception {
+        configure( ResilienceConfiguration.builder().noRetries().hedgeAfter( 100, TimeUnit.MILLISECONDS ) );
+        StubClient client = new StubClient( respond( 200, 0 ) );
+
+        Assert.assertEquals( 200, new ResilientClient( client ).execute( request( "GET" ) ).getStatus() );
+        Thread.sleep( 300 );
+        Assert.assertEquals( 1, client.getCalls() );
+    }
+
+    private static void configure( ResilienceConfigurationBuilder builder ) {
+        KryptnosticRestAdapter.configureResilience( builder.backoff( 1, 1, TimeUnit.MILLISECONDS ).build() );
+    }
+
+    private static Request request( String method ) {
+        return new Request( method, URL, ImmutableList.<Header> of(), null );
+    }
+
+    private static Callable<Response> respond( final int status, final long delayMillis ) {
+        return new Callable<Response>() {
+            @Override
+            public Response call() throws InterruptedException {
+                Thread.sleep( delayMillis );
+                return new Response( URL, status, "", ImmutableList.<Header> of(), null );
+            }
+        };
+    }
+
+    private static Callable<Response> fail() {
+        return fail( 0 );
+    }
+
+    private static Callable<Response> fail( final long delayMillis ) {
+        return new Callable<Response>() {
+            @Override
+            public Response call() throws IOException, InterruptedException {
+                Thread.sleep( delayMillis );
+                throw new IOException( "Connection reset." );
+            }
+        };
+    }
+
+    /**
+     * Answers each call with the next of its behaviours, repeating the last one once they run out.
+     */
+    private static final class StubClient implements Client {
+        private final List<Callable<Response>> behaviours;
+        private final AtomicInteger            calls = new AtomicInteger();
+
+        @SafeVarargs
+        public StubClient( Callable<Response>... behaviours ) {
+            this.behaviours = ImmutableList.copyOf( behaviours );
+        }
+
+        @Override
+        public Response execute( Request request ) throws IOException {
+            int call = calls.getAndIncrement();
+            try {
+                return behaviours.get( Math.min( call, behaviours.size() - 1 ) ).call();
+            } catch ( IOException e ) {
+                throw e;
+            } catch ( Exception e ) {
+                throw new IOException( e );
+            }
+        }
+
+        public int getCalls() {
+            return calls.get();
+        }
+    }
+}
@@ -22,4 +22,15 @@ public class AnalyzerTests {
                 invertedIndex.keySet(),
                 Sets.newHashSet( "this", "is", "a", "test", "document", "with", "some", "fu", "3d", "hit", "up" ) );
     }
+
+    @Test
+    public void testQueryAnalysisMatchesIndexing() {
+        TokenizingWhitespaceAnalyzer analyzer = new TokenizingWhitespaceAnalyzer( Indexer.DEFAULT_BUCKET_SIZE );
+
+        Assert.assertEquals( analyzer.analyze( doc ).keySet(), analyzer.analyzeQuery( doc ) );
+        Assert.assertEquals(
+                Sets.newHashSet( "this", "is", "a", "test" ),
+                analyzer.analyzeQuery( "THIS is a test, a TEST" ) );
+        Assert.assertTrue( analyzer.analyzeQuery( " ,.! " ).isEmpty() );
+    }
 }
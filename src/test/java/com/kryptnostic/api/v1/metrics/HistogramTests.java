@@ -0,0 +1,59 @@
+package com.kryptnostic.api.v1.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HistogramTests {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        for ( long value = 0; value < 16; ++value ) {
+            Assert.assertEquals( value, Histogram.upperBoundOf( Histogram.bucketOf( value ) ) );
+        }
+        Histogram histogram = new Histogram();
+        for ( int i = 1; i <= 8; ++i ) {
+            histogram.record( i );
+        }
+        Assert.assertEquals( 4, histogram.getValueAtPercentile( 50 ) );
+        Assert.assertEquals( 8, histogram.getValueAtPercentile( 100 ) );
+    }
+
+    @Test
+    public void testPercentilesAreWithinBucketError() {
+        Histogram histogram = new Histogram();
+        for ( long value = 1; value <= 100000; ++value ) {
+            histogram.record( value );
+        }
+        Assert.assertEquals( 100000, histogram.getCount() );
+        Assert.assertEquals( 100000, histogram.getMax() );
+        Assert.assertEquals( 50000.5, histogram.getMean(), 0.001 );
+        assertWithin( 50000, histogram.getValueAtPercentile( 50 ) );
+        assertWithin( 99000, histogram.getValueAtPercentile( 99 ) );
+        assertWithin( 99900, histogram.getValueAtPercentile( 99.9 ) );
+    }
+
+    @Test
+    public void testBucketsCoverAllValues() {
+        Assert.assertEquals( Long.MAX_VALUE, Histogram.upperBoundOf( Histogram.bucketOf( Long.MAX_VALUE ) ) );
+        long previous = -1;
+        for ( int shift = 0; shift < 63; ++shift ) {
+            long value = 1L << shift;
+            long upper = Histogram.upperBoundOf( Histogram.bucketOf( value ) );
+            Assert.assertTrue( upper >= value );
+            Assert.assertTrue( upper > previous );
+            previous = upper;
+        }
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        Histogram histogram = new Histogram();
+        Assert.assertEquals( 0, histogram.getValueAtPercentile( 99 ) );
+        Assert.assertEquals( 0, histogram.getMean(), 0 );
+    }
+
+    private static void assertWithin( long expected, long actual ) {
+        Assert.assertTrue( "Expected about " + expected + " but was " + actual,
+                actual >= expected && actual <= expected * 1.125 );
+    }
+}
@@ -0,0 +1,111 @@
+package com.kryptnostic.api.v1.search;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.kryptnostic.api.v1.indexing.analysis.TokenizingWhitespaceAnalyzer;
+import com.kryptnostic.v2.indexing.Indexer;
+import com.kryptnostic.v2.indexing.PaddedMetadataMapper;
+
+public class PhraseQueryEvaluatorTests {
+    private static final String             doc       = "The quick brown fox jumps over the lazy dog. A brown, quick "
+                                                              + "fox naps; the dog is lazy too.";
+    private static final Map<String, int[]> locations = locationsOf( doc );
+
+    @Test
+    public void testPhraseMatches() {
+        Assert.assertTrue( PhraseQueryEvaluator.phrase( ImmutableList.of( "quick", "brown", "fox" ) ).matches(
+                locations ) );
+        Assert.assertTrue( PhraseQueryEvaluator.phrase( ImmutableList.of( "the", "lazy", "dog" ) ).matches(
+                locations ) );
+        Assert.assertTrue( PhraseQueryEvaluator.phrase( ImmutableList.of( "brown", "quick" ) ).matches( locations ) );
+    }
+
+    @Test
+    public void testPhraseRequiresAdjacentTerms() {
+        Assert.assertFalse( PhraseQueryEvaluator.phrase( ImmutableList.of( "fox", "over" ) ).matches( locations ) );
+        Assert.assertFalse( PhraseQueryEvaluator.phrase( ImmutableList.of( "lazy", "the" ) ).matches( locations ) );
+        Assert.assertFalse( PhraseQueryEvaluator.phrase( ImmutableList.of( "dog", "lazy" ) ).matches( locations ) );
+        Assert.assertFalse( PhraseQueryEvaluator.phrase( ImmutableList.of( "quick", "cat" ) ).matches( locations ) );
+    }
+
+    @Test
+    public void testRepeatedPhraseTerms() {
+        Map<String, int[]> repeated = locationsOf( "to be or not to be" );
+        Assert.assertTrue( PhraseQueryEvaluator.phrase( ImmutableList.of( "to", "be", "or", "not", "to", "be" ) )
+                .matches( repeated ) );
+        Assert.assertFalse( PhraseQueryEvaluator.phrase( ImmutableList.of( "be", "to", "be" ) ).matches( repeated ) );
+    }
+
+    @Test
+    public void testPhraseWithUnindexedTokens() {
+        Map<String, int[]> indexed = indexedLocationsOf( "I am going to buy a car, not a bike." );
+        Assert.assertTrue( PhraseQueryEvaluator.phrase( ImmutableList.of( "buy", "a", "car" ) ).matches( indexed ) );
+        Assert.assertTrue( PhraseQueryEvaluator.phrase( ImmutableList.of( "i", "am", "going" ) ).matches( indexed ) );
+        Assert.assertTrue( PhraseQueryEvaluator.phrase( ImmutableList.of( "car", "not", "a" ) ).matches( indexed ) );
+        Assert.assertFalse( PhraseQueryEvaluator.phrase( ImmutableList.of( "buy", "car" ) ).matches( indexed ) );
+        Assert.assertFalse( PhraseQueryEvaluator.phrase( ImmutableList.of( "not", "a", "car" ) ).matches( indexed ) );
+        Assert.assertFalse( PhraseQueryEvaluator.phrase( ImmutableList.of( "to", "a", "car" ) ).matches( indexed ) );
+    }
+
+    @Test
+    public void testQueriesWithoutIndexedTerms() {
+        Map<String, int[]> indexed = indexedLocationsOf( "a b c" );
+        PhraseQueryEvaluator unindexed = PhraseQueryEvaluator.phrase( ImmutableList.of( "a", "b" ) );
+        Assert.assertTrue( unindexed.getTerms().isEmpty() );
+        Assert.assertFalse( unindexed.matches( indexed ) );
+        Assert.assertTrue( PhraseQueryEvaluator.phrase( ImmutableList.<String> of() ).getTerms().isEmpty() );
+        Assert.assertFalse( PhraseQueryEvaluator.near( ImmutableSet.<String> of(), 10 ).matches( indexed ) );
+    }
+
+    @Test
+    public void testNear() {
+        Assert.assertTrue( PhraseQueryEvaluator.near( ImmutableSet.of( "dog", "naps" ), 20 ).matches( locations ) );
+        Assert.assertTrue( PhraseQueryEvaluator.near( ImmutableSet.of( "fox", "quick" ), 6 ).matches( locations ) );
+        Assert.assertFalse( PhraseQueryEvaluator.near( ImmutableSet.of( "jumps", "naps" ), 20 ).matches( locations ) );
+        Assert.assertFalse( PhraseQueryEvaluator.near( ImmutableSet.of( "jumps", "cat" ), 100 ).matches( locations ) );
+    }
+
+    @Test
+    public void testSortedLocationsDropPadding() {
+        int[] sorted = PhraseQueryEvaluator.toSortedLocations( Lists.newArrayList( 40, -7, 3, -1, 12 ) );
+        Assert.assertEquals( 3, sorted.length );
+        Assert.assertEquals( 3, sorted[ 0 ] );
+        Assert.assertEquals( 12, sorted[ 1 ] );
+        Assert.assertEquals( 40, sorted[ 2 ] );
+    }
+
+    /**
+     * @return Locations of the terms of {@code source} that are long enough to be indexed.
+     */
+    private static Map<String, int[]> indexedLocationsOf( String source ) {
+        Map<String, int[]> indexed = Maps.newHashMap();
+        for ( Entry<String, int[]> term : locationsOf( source ).entrySet() ) {
+            if ( term.getKey().length() > PaddedMetadataMapper.MINIMUM_TOKEN_LENGTH ) {
+                indexed.put( term.getKey(), term.getValue() );
+            }
+        }
+        return indexed;
+    }
+
+    private static Map<String, int[]> locationsOf( String source ) {
+        TokenizingWhitespaceAnalyzer analyzer = new TokenizingWhitespaceAnalyzer( Indexer.DEFAULT_BUCKET_SIZE );
+        Map<String, int[]> locations = Maps.newHashMap();
+        for ( Entry<String, List<List<Integer>>> term : analyzer.analyze( source ).entrySet() ) {
+            List<Integer> flattened = Lists.newArrayList();
+            for ( List<Integer> bucket : term.getValue() ) {
+                flattened.addAll( bucket );
+            }
+            locations.put( term.getKey(), PhraseQueryEvaluator.toSortedLocations( flattened ) );
+        }
+        return locations;
+    }
+}
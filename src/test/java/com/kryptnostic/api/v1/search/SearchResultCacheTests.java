@@ -0,0 +1,127 @@
+package com.kryptnostic.api.v1.search;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.kryptnostic.v2.search.SearchResult;
+import com.kryptnostic.v2.storage.models.VersionedObjectKey;
+
+public class SearchResultCacheTests {
+    private final SearchResultCache  cache = new SearchResultCache( 100, 60 );
+    private final VersionedObjectKey fox   = new VersionedObjectKey( UUID.randomUUID(), 0 );
+    private final VersionedObjectKey dog   = new VersionedObjectKey( UUID.randomUUID(), 0 );
+
+    @Test
+    public void testCachesCompletedSearches() {
+        Set<String> terms = SearchResultCache.normalize( ImmutableList.of( "quick", "fox", "quick" ) );
+        Assert.assertNull( cache.getIfPresent( terms ) );
+
+        search( terms, fox );
+
+        Assert.assertEquals( 1, cache.getIfPresent( SearchResultCache.normalize( ImmutableList.of( "fox", "quick" ) ) )
+                .size() );
+    }
+
+    @Test
+    public void testStoreInvalidatesOverlappingQueries() {
+        Set<String> foxQuery = ImmutableSet.of( "fox" );
+        Set<String> dogQuery = ImmutableSet.of( "dog" );
+        search( foxQuery, fox );
+        search( dogQuery, dog );
+        long generation = cache.getGeneration();
+
+        cache.onObjectStored( new VersionedObjectKey( UUID.randomUUID(), 0 ), ImmutableSet.of( "fox", "jumps" ) );
+
+        Assert.assertNull( cache.getIfPresent( foxQuery ) );
+        Assert.assertNotNull( cache.getIfPresent( dogQuery ) );
+        Assert.assertEquals( generation + 1, cache.getGeneration() );
+    }
+
+    @Test
+    public void testStoreInvalidatesQueriesReturningObject() {
+        Set<String> foxQuery = ImmutableSet.of( "fox" );
+        search( foxQuery, fox );
+
+        cache.onObjectStored( fox, ImmutableSet.of( "cat" ) );
+
+        Assert.assertNull( cache.getIfPresent( foxQuery ) );
+    }
+
+    @Test
+    public void testUnrelatedStoreKeepsGeneration() {
+        Set<String> foxQuery = ImmutableSet.of( "fox" );
+        search( foxQuery, fox );
+        long generation = cache.begin( ImmutableSet.of( "dog" ) );
+
+        cache.onObjectStored( new VersionedObjectKey( UUID.randomUUID(), 0 ), ImmutableSet.of( "cat" ) );
+
+        Assert.assertEquals( generation, cache.getGeneration() );
+        Assert.assertNotNull( cache.getIfPresent( foxQuery ) );
+        cache.put( ImmutableSet.of( "dog" ), results( dog ), ImmutableSet.of( dog.getObjectId() ), generation );
+        cache.end( ImmutableSet.of( "dog" ) );
+        Assert.assertNotNull( cache.getIfPresent( ImmutableSet.of( "dog" ) ) );
+    }
+
+    @Test
+    public void testStoreDuringSearchPreventsCaching() {
+        Set<String> foxQuery = ImmutableSet.of( "fox" );
+        long generation = cache.begin( foxQuery );
+
+        cache.onObjectStored( new VersionedObjectKey( UUID.randomUUID(), 0 ), ImmutableSet.of( "fox" ) );
+        cache.put( foxQuery, results( fox ), ImmutableSet.of( fox.getObjectId() ), generation );
+        cache.end( foxQuery );
+
+        Assert.assertNull( cache.getIfPresent( foxQuery ) );
+    }
+
+    @Test
+    public void testDelete() {
+        Set<String> foxQuery = ImmutableSet.of( "fox" );
+        Set<String> dogQuery = ImmutableSet.of( "dog" );
+        search( foxQuery, fox );
+        search( dogQuery, dog );
+        long generation = cache.getGeneration();
+
+        cache.onObjectDeleted( UUID.randomUUID() );
+        Assert.assertEquals( generation, cache.getGeneration() );
+
+        cache.onObjectDeleted( fox.getObjectId() );
+        Assert.assertNull( cache.getIfPresent( foxQuery ) );
+        Assert.assertNotNull( cache.getIfPresent( dogQuery ) );
+
+        generation = cache.begin( foxQuery );
+        cache.onObjectDeleted( UUID.randomUUID() );
+        cache.put( foxQuery, results( fox ), ImmutableSet.of( fox.getObjectId() ), generation );
+        cache.end( foxQuery );
+        Assert.assertNull( cache.getIfPresent( foxQuery ) );
+    }
+
+    @Test
+    public void testSharesInvalidateEverything() {
+        Set<String> foxQuery = ImmutableSet.of( "fox" );
+        search( foxQuery, fox );
+
+        cache.onSharesReceived( ImmutableSet.<VersionedObjectKey> of() );
+        Assert.assertNotNull( cache.getIfPresent( foxQuery ) );
+
+        cache.onSharesReceived( ImmutableSet.of( dog ) );
+        Assert.assertNull( cache.getIfPresent( foxQuery ) );
+        Assert.assertEquals( 0, cache.size() );
+    }
+
+    private void search( Set<String> terms, VersionedObjectKey result ) {
+        long generation = cache.begin( terms );
+        cache.put( terms, results( result ), ImmutableSet.of( result.getObjectId() ), generation );
+        cache.end( terms );
+    }
+
+    private static Set<SearchResult> results( VersionedObjectKey objectKey ) {
+        return ImmutableSet.of( new SearchResult( objectKey, "term", ImmutableList.<List<Integer>> of() ) );
+    }
+}
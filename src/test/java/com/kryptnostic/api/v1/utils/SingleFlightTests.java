@@ -0,0 +1,94 @@
+package com.kryptnostic.api.v1.utils;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+public class SingleFlightTests {
+    @Test
+    public void testConcurrentCallsShareResult() throws Exception {
+        final SingleFlight<String, Integer> flights = new SingleFlight<>();
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final Callable<Integer> call = new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                release.await();
+                return calls.incrementAndGet();
+            }
+        };
+
+        ListeningExecutorService executor = KryptnosticExecutors.newFixedThreadPool( "single-flight-test", 4 );
+        List<ListenableFuture<Integer>> results = Lists.newArrayList();
+        results.add( executor.submit( new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return flights.execute( "key", call );
+            }
+        } ) );
+        while ( flights.getInFlight( "key" ) == null ) {
+            Thread.yield();
+        }
+        for ( int i = 0; i < 3; ++i ) {
+            results.add( executor.submit( new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return flights.execute( "key", call );
+                }
+            } ) );
+        }
+        // Give the waiters a chance to join the flight before it lands.
+        Thread.sleep( 100 );
+        release.countDown();
+
+        for ( Integer result : Futures.allAsList( results ).get( 10, TimeUnit.SECONDS ) ) {
+            Assert.assertEquals( Integer.valueOf( 1 ), result );
+        }
+        Assert.assertEquals( 1, calls.get() );
+        Assert.assertNull( flights.getInFlight( "key" ) );
+        executor.shutdown();
+    }
+
+    @Test
+    public void testCompletedCallsAreNotCached() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        final AtomicInteger calls = new AtomicInteger();
+        Callable<Integer> call = new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return calls.incrementAndGet();
+            }
+        };
+
+        Assert.assertEquals( Integer.valueOf( 1 ), flights.execute( "key", call ) );
+        Assert.assertEquals( Integer.valueOf( 2 ), flights.execute( "key", call ) );
+    }
+
+    @Test
+    public void testFailureIsReportedAndCleared() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        try {
+            flights.execute( "key", new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    throw new IllegalStateException( "boom" );
+                }
+            } );
+            Assert.fail( "Expected the failure to propagate." );
+        } catch ( ExecutionException e ) {
+            Assert.assertTrue( e.getCause() instanceof IllegalStateException );
+        }
+        Assert.assertNull( flights.getInFlight( "key" ) );
+    }
+}
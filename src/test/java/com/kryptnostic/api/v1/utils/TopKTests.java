@@ -0,0 +1,50 @@
+package com.kryptnostic.api.v1.utils;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+
+public class TopKTests {
+
+    @Test
+    public void testKeepsGreatestElementsInOrder() {
+        List<Integer> values = Lists.newArrayList();
+        for ( int i = 0; i < 1000; ++i ) {
+            values.add( i );
+        }
+        Collections.shuffle( values );
+
+        TopK<Integer> top = new TopK<>( 5, Ordering.<Integer> natural() );
+        for ( Integer value : values ) {
+            top.offer( value );
+        }
+        Assert.assertEquals( 5, top.size() );
+        Assert.assertEquals( ImmutableList.of( 999, 998, 997, 996, 995 ), top.toSortedList() );
+    }
+
+    @Test
+    public void testFewerElementsThanK() {
+        TopK<Integer> top = new TopK<>( 10, Ordering.<Integer> natural() );
+        Assert.assertTrue( top.offer( 2 ) );
+        Assert.assertTrue( top.offer( 7 ) );
+        Assert.assertTrue( top.offer( 4 ) );
+        Assert.assertEquals( ImmutableList.of( 7, 4, 2 ), top.toSortedList() );
+    }
+
+    @Test
+    public void testRejectsElementsBelowTheHeap() {
+        TopK<Integer> top = new TopK<>( 2, Ordering.<Integer> natural() );
+        top.offer( 5 );
+        top.offer( 6 );
+        Assert.assertFalse( top.offer( 1 ) );
+        Assert.assertFalse( top.offer( 5 ) );
+        Assert.assertTrue( top.offer( 8 ) );
+        Assert.assertEquals( ImmutableList.of( 8, 6 ), top.toSortedList() );
+    }
+}
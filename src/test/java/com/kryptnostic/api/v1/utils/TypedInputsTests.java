@@ -0,0 +1,60 @@
+package com.kryptnostic.api.v1.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import retrofit.mime.TypedByteArray;
+import retrofit.mime.TypedInput;
+
+public class TypedInputsTests {
+    private static final String BYTE_MIME_TYPE = "application/octet-stream";
+
+    @Test
+    public void testBufferedBodyIsNotCopied() throws IOException {
+        byte[] bytes = new byte[] { 1, 2, 3 };
+        Assert.assertSame( bytes, TypedInputs.toByteArray( new TypedByteArray( BYTE_MIME_TYPE, bytes ) ) );
+    }
+
+    @Test
+    public void testStreamedBodyWithLength() throws IOException {
+        byte[] bytes = new byte[] { 1, 2, 3, 4, 5 };
+        Assert.assertArrayEquals( bytes, TypedInputs.toByteArray( stream( bytes, bytes.length ) ) );
+    }
+
+    @Test
+    public void testStreamedBodyWithoutLength() throws IOException {
+        byte[] bytes = new byte[] { 1, 2, 3, 4, 5 };
+        Assert.assertArrayEquals( bytes, TypedInputs.toByteArray( stream( bytes, -1 ) ) );
+    }
+
+    @Test
+    public void testIsEmpty() {
+        Assert.assertTrue( TypedInputs.isEmpty( new TypedByteArray( BYTE_MIME_TYPE, new byte[ 0 ] ) ) );
+        Assert.assertFalse( TypedInputs.isEmpty( new TypedByteArray( BYTE_MIME_TYPE, new byte[ 1 ] ) ) );
+        // Unknown length isn't known to be empty.
+        Assert.assertFalse( TypedInputs.isEmpty( stream( new byte[ 0 ], -1 ) ) );
+    }
+
+    private static TypedInput stream( final byte[] bytes, final long length ) {
+        return new TypedInput() {
+            @Override
+            public String mimeType() {
+                return BYTE_MIME_TYPE;
+            }
+
+            @Override
+            public long length() {
+                return length;
+            }
+
+            @Override
+            public InputStream in() {
+                return new ByteArrayInputStream( bytes );
+            }
+        };
+    }
+}
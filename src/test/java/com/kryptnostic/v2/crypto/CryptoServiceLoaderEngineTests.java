@@ -0,0 +1,72 @@
+package com.kryptnostic.v2.crypto;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
+import com.kryptnostic.kodex.v1.crypto.ciphers.Cypher;
+
+public class CryptoServiceLoaderEngineTests {
+    @Test
+    public void testCreatedKeyIsEvictedWhenUploadFails() throws Exception {
+        CryptoServiceLoaderEngine<String, CryptoService> engine = new CryptoServiceLoaderEngine<>(
+                new FailingStrategy(),
+                Cypher.AES_CTR_128,
+                true );
+
+        CryptoService created = engine.get( "object" ).get();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos( 10 );
+        while ( engine.get( "object" ).get() == created ) {
+            Assert.assertTrue( "Key was never evicted.", System.nanoTime() < deadline );
+            Thread.sleep( 10 );
+        }
+        Assert.assertTrue( engine.getCreatedCount() >= 2 );
+    }
+
+    @Test
+    public void testPutKeyIsEvictedWhenUploadFails() throws Exception {
+        CryptoServiceLoaderEngine<String, CryptoService> engine = new CryptoServiceLoaderEngine<>(
+                new FailingStrategy(),
+                Cypher.AES_CTR_128,
+                true );
+        CryptoService service = engine.get( "existing" ).get();
+
+        engine.put( "object", service );
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos( 10 );
+        while ( engine.get( "object" ).get() == service ) {
+            Assert.assertTrue( "Key was never evicted.", System.nanoTime() < deadline );
+            Thread.sleep( 10 );
+        }
+    }
+
+    /**
+     * A server that has no keys and refuses to store new ones.
+     */
+    private static final class FailingStrategy implements KeyWrapStrategy<String, CryptoService> {
+        @Override
+        public CryptoService unwrap( CryptoService wrapped ) {
+            return wrapped;
+        }
+
+        @Override
+        public CryptoService fetch( String id ) {
+            return null;
+        }
+
+        @Override
+        public Map<String, CryptoService> fetchAll( Set<String> ids ) {
+            return ImmutableMap.of();
+        }
+
+        @Override
+        public void store( String id, CryptoService service ) throws IOException {
+            throw new IOException( "Upload failed." );
+        }
+    }
+}
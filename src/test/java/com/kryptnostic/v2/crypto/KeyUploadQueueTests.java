@@ -0,0 +1,125 @@
+package com.kryptnostic.v2.crypto;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.kryptnostic.api.v1.utils.KryptnosticExecutors;
+import com.kryptnostic.kodex.v1.crypto.ciphers.CryptoService;
+
+public class KeyUploadQueueTests {
+    private final ListeningExecutorService executor = KryptnosticExecutors.newFixedThreadPool( "key-upload-test", 2 );
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testUploadsEveryKeyInBatches() throws Exception {
+        final List<Integer> uploaded = Lists.newCopyOnWriteArrayList();
+        KeyUploadQueue<Integer> queue = new KeyUploadQueue<>( new KeyUploadQueue.KeyUploader<Integer>() {
+            @Override
+            public void upload( Integer id, CryptoService service ) {
+                uploaded.add( id );
+            }
+        }, 2, executor );
+
+        List<ListenableFuture<Void>> durable = Lists.newArrayList();
+        for ( int i = 0; i < 5; ++i ) {
+            durable.add( queue.enqueue( i, null ) );
+        }
+        queue.flush();
+
+        for ( ListenableFuture<Void> future : durable ) {
+            future.get( 10, TimeUnit.SECONDS );
+        }
+        Assert.assertEquals( 5, uploaded.size() );
+        Assert.assertEquals( 0, queue.size() );
+        Assert.assertTrue( queue.whenDurable( 3 ).isDone() );
+    }
+
+    @Test
+    public void testWhenDurableWaitsForUpload() throws Exception {
+        final CountDownLatch release = new CountDownLatch( 1 );
+        KeyUploadQueue<Integer> queue = new KeyUploadQueue<>( new KeyUploadQueue.KeyUploader<Integer>() {
+            @Override
+            public void upload( Integer id, CryptoService service ) throws IOException {
+                try {
+                    release.await();
+                } catch ( InterruptedException e ) {
+                    throw new IOException( e );
+                }
+            }
+        }, 2, executor );
+
+        ListenableFuture<Void> enqueued = queue.enqueue( 1, null );
+        ListenableFuture<Void> durable = queue.whenDurable( 1 );
+        Assert.assertTrue( enqueued == durable );
+        Assert.assertTrue( enqueued == queue.enqueue( 1, null ) );
+        Assert.assertFalse( durable.isDone() );
+        Assert.assertEquals( 1, queue.size() );
+
+        release.countDown();
+        durable.get( 10, TimeUnit.SECONDS );
+        Assert.assertEquals( 0, queue.size() );
+    }
+
+    @Test
+    public void testFailedUploadFailsOnlyItsKey() throws Exception {
+        final List<Integer> uploaded = Lists.newCopyOnWriteArrayList();
+        KeyUploadQueue<Integer> queue = new KeyUploadQueue<>( new KeyUploadQueue.KeyUploader<Integer>() {
+            @Override
+            public void upload( Integer id, CryptoService service ) throws IOException {
+                if ( id == 0 ) {
+                    throw new IOException( "Upload failed." );
+                }
+                uploaded.add( id );
+            }
+        }, 1, executor );
+
+        ListenableFuture<Void> failed = queue.enqueue( 0, null );
+        ListenableFuture<Void> succeeded = queue.enqueue( 1, null );
+        try {
+            failed.get( 10, TimeUnit.SECONDS );
+            Assert.fail( "Expected the upload to fail." );
+        } catch ( ExecutionException e ) {
+            Assert.assertTrue( e.getCause() instanceof IOException );
+        }
+        succeeded.get( 10, TimeUnit.SECONDS );
+
+        Assert.assertEquals( Lists.newArrayList( 1 ), uploaded );
+        Assert.assertEquals( 0, queue.size() );
+    }
+
+    @Test
+    public void testWhenDurableFailsAfterFailedUpload() throws Exception {
+        KeyUploadQueue<Integer> queue = new KeyUploadQueue<>( new KeyUploadQueue.KeyUploader<Integer>() {
+            @Override
+            public void upload( Integer id, CryptoService service ) throws IOException {
+                throw new IOException( "Upload failed." );
+            }
+        }, 1, executor );
+
+        try {
+            queue.enqueue( 0, null ).get( 10, TimeUnit.SECONDS );
+            Assert.fail( "Expected the upload to fail." );
+        } catch ( ExecutionException e ) {}
+
+        try {
+            queue.whenDurable( 0 ).get( 10, TimeUnit.SECONDS );
+            Assert.fail( "Expected a failed key not to be reported as durable." );
+        } catch ( ExecutionException e ) {
+            Assert.assertTrue( e.getCause() instanceof IOException );
+        }
+    }
+}